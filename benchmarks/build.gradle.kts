@@ -0,0 +1,31 @@
+dependencies {
+    testImplementation(project(":refactoringminer"))
+    testImplementation("org.openjdk.jmh:jmh-core:1.32")
+    testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.32")
+}
+
+tasks {
+    // The benchmarks take minutes, so they are not part of the build
+    test {
+        enabled = false
+    }
+
+    register<Test>("benchmark") {
+        description = "Runs the JMH benchmarks over the checked-in corpus."
+        group = "verification"
+        testClassesDirs = sourceSets.test.get().output.classesDirs
+        classpath = sourceSets.test.get().runtimeClasspath
+        filter {
+            includeTestsMatching("org.refactoringminer.benchmarks.BenchmarkRunner")
+        }
+        project.findProperty("include")?.let { systemProperty("benchmark.include", it) }
+        jvmArgs = listOf(
+            "-Djava.awt.headless=true",
+            "--add-exports",
+            "java.base/jdk.internal.vm=ALL-UNNAMED"
+        )
+        maxHeapSize = "4g"
+        testLogging.showStandardStreams = true
+        outputs.upToDateWhen { false }
+    }
+}
@@ -0,0 +1,36 @@
+package org.refactoringminer.benchmarks;
+
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import java.io.File;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks inside the test application, which provides the PSI used for parsing.
+ * The benchmarks run in this JVM, as a forked JVM would not have the application initialized.
+ * <p>
+ * {@code ./gradlew :benchmarks:benchmark [-Pinclude=<regex>]} writes the results to {@code build/reports/jmh/results.json}.
+ */
+public class BenchmarkRunner extends LightJavaCodeInsightFixtureTestCase {
+
+    @Override
+    protected boolean runInDispatchThread() {
+        return false;
+    }
+
+    public void testBenchmarks() throws Exception {
+        File results = new File("build/reports/jmh/results.json");
+        results.getParentFile().mkdirs();
+        Options options = new OptionsBuilder()
+            .include(System.getProperty("benchmark.include", BenchmarkRunner.class.getPackageName() + ".*"))
+            .forks(0)
+            .warmupIterations(3)
+            .measurementIterations(5)
+            .resultFormat(ResultFormatType.JSON)
+            .result(results.getPath())
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,66 @@
+package org.refactoringminer.benchmarks;
+
+import gr.uom.java.xmi.PsiFileCache;
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.UMLOperationBodyMapper;
+import gr.uom.java.xmi.diff.UMLClassDiff;
+import gr.uom.java.xmi.diff.UMLModelDiff;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+
+/**
+ * Construction of the body mappers of the operations with the same signature in the classes present in both versions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BodyMapperBenchmark {
+    @Param({"extractMethod", "moveAndRenameClass", "pullUpMethod"})
+    public String corpusName;
+    private Corpus corpus;
+    private final PsiFileCache psiFileCache = new PsiFileCache(100);
+    private UMLModel parentModel;
+    private UMLModel currentModel;
+
+    @Setup
+    public void loadCorpus() {
+        corpus = new Corpus(corpusName);
+    }
+
+    @Setup(Level.Invocation)
+    public void createModels() {
+        parentModel = corpus.createModelBefore(psiFileCache);
+        currentModel = corpus.createModelCurrent(psiFileCache);
+    }
+
+    @Benchmark
+    public int mapOperations() throws RefactoringMinerTimedOutException {
+        int mappings = 0;
+        UMLModelDiff modelDiff = new UMLModelDiff(parentModel, currentModel);
+        for (UMLClass originalClass : parentModel.getClassList()) {
+            UMLClass nextClass = currentModel.getClass(originalClass);
+            if (nextClass == null) {
+                continue;
+            }
+            UMLClassDiff classDiff = new UMLClassDiff(originalClass, nextClass, modelDiff);
+            for (UMLOperation operation1 : originalClass.getOperations()) {
+                UMLOperation operation2 = nextClass.operationWithTheSameSignature(operation1);
+                if (operation2 != null) {
+                    mappings += new UMLOperationBodyMapper(operation1, operation2, classDiff).getMappings().size();
+                }
+            }
+        }
+        return mappings;
+    }
+}
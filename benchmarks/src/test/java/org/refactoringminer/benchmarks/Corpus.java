@@ -0,0 +1,74 @@
+package org.refactoringminer.benchmarks;
+
+import gr.uom.java.xmi.PsiFileCache;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModelASTReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A before/after pair of source trees in {@code src/test/resources/corpus/<name>}, loaded the same way
+ * the files of a commit and its parent are loaded by {@code GitHistoryRefactoringMinerImpl}.
+ */
+public class Corpus {
+    private static final Path ROOT = Path.of("src/test/resources/corpus");
+    private final Map<String, String> fileContentsBefore;
+    private final Map<String, String> fileContentsCurrent;
+
+    public Corpus(String name) {
+        this.fileContentsBefore = readFiles(ROOT.resolve(name).resolve("before"));
+        this.fileContentsCurrent = readFiles(ROOT.resolve(name).resolve("after"));
+    }
+
+    public Map<String, String> getFileContentsBefore() {
+        return fileContentsBefore;
+    }
+
+    public Map<String, String> getFileContentsCurrent() {
+        return fileContentsCurrent;
+    }
+
+    public UMLModel createModelBefore(PsiFileCache psiFileCache) {
+        return createModel(fileContentsBefore, "before", psiFileCache);
+    }
+
+    public UMLModel createModelCurrent(PsiFileCache psiFileCache) {
+        return createModel(fileContentsCurrent, "after", psiFileCache);
+    }
+
+    private static UMLModel createModel(Map<String, String> fileContents, String version, PsiFileCache psiFileCache) {
+        Map<String, String> fileKeys = new HashMap<>();
+        Set<String> repositoryDirectories = new LinkedHashSet<>();
+        for (String path : fileContents.keySet()) {
+            fileKeys.put(path, version + ":" + path);
+            String directory = path;
+            while (directory.contains("/")) {
+                directory = directory.substring(0, directory.lastIndexOf("/"));
+                repositoryDirectories.add(directory);
+            }
+        }
+        return new UMLModelASTReader(fileContents, fileKeys, repositoryDirectories, psiFileCache).getUmlModel();
+    }
+
+    private static Map<String, String> readFiles(Path root) {
+        try (Stream<Path> files = Files.walk(root)) {
+            Map<String, String> fileContents = new LinkedHashMap<>();
+            for (Path file : files.filter(path -> path.toString().endsWith(".java")).sorted().collect(Collectors.toList())) {
+                String path = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                fileContents.put(path, Files.readString(file));
+            }
+            return fileContents;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
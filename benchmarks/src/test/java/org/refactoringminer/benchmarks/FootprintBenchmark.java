@@ -0,0 +1,63 @@
+package org.refactoringminer.benchmarks;
+
+import gr.uom.java.xmi.PsiFileCache;
+import gr.uom.java.xmi.UMLModel;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Heap retained by the models of a commit and its parent, reported as the {@code retainedBytes} counter.
+ * The parse trees are cached, so that only the models are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FootprintBenchmark {
+    @Param({"extractMethod", "moveAndRenameClass", "pullUpMethod"})
+    public String corpusName;
+    private Corpus corpus;
+    private final PsiFileCache psiFileCache = new PsiFileCache(100);
+
+    @Setup
+    public void loadCorpus() {
+        corpus = new Corpus(corpusName);
+        corpus.createModelBefore(psiFileCache);
+        corpus.createModelCurrent(psiFileCache);
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long retainedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public UMLModel[] createModels(Footprint footprint) {
+        long before = usedHeap();
+        UMLModel[] models = {corpus.createModelBefore(psiFileCache), corpus.createModelCurrent(psiFileCache)};
+        footprint.retainedBytes += usedHeap() - before;
+        return models;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
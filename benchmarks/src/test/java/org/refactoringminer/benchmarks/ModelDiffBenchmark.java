@@ -0,0 +1,49 @@
+package org.refactoringminer.benchmarks;
+
+import gr.uom.java.xmi.PsiFileCache;
+import gr.uom.java.xmi.UMLModel;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.refactoringminer.api.Refactoring;
+import org.refactoringminer.api.RefactoringMinerTimedOutException;
+
+/**
+ * Diffing of the models of a commit and its parent. Diffing mutates the models, so they are created anew
+ * for every invocation from cached parse trees.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModelDiffBenchmark {
+    @Param({"extractMethod", "moveAndRenameClass", "pullUpMethod"})
+    public String corpusName;
+    private Corpus corpus;
+    private final PsiFileCache psiFileCache = new PsiFileCache(100);
+    private UMLModel parentModel;
+    private UMLModel currentModel;
+
+    @Setup
+    public void loadCorpus() {
+        corpus = new Corpus(corpusName);
+    }
+
+    @Setup(Level.Invocation)
+    public void createModels() {
+        parentModel = corpus.createModelBefore(psiFileCache);
+        currentModel = corpus.createModelCurrent(psiFileCache);
+    }
+
+    @Benchmark
+    public List<Refactoring> diff() throws RefactoringMinerTimedOutException {
+        return parentModel.diff(currentModel).getRefactorings();
+    }
+}
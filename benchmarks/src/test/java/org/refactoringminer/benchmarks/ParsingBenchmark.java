@@ -0,0 +1,34 @@
+package org.refactoringminer.benchmarks;
+
+import gr.uom.java.xmi.UMLModel;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing of the changed files of a commit into a UML model, without reusing parsed files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParsingBenchmark {
+    @Param({"extractMethod", "moveAndRenameClass", "pullUpMethod"})
+    public String corpusName;
+    private Corpus corpus;
+
+    @Setup
+    public void loadCorpus() {
+        corpus = new Corpus(corpusName);
+    }
+
+    @Benchmark
+    public UMLModel parse() {
+        return corpus.createModelBefore(null);
+    }
+}
@@ -0,0 +1,75 @@
+package org.refactoringminer.benchmarks;
+
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.ReplacementUtil;
+import gr.uom.java.xmi.decomposition.StatementObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Variable replacements between the statements of the operations with the same signature, as tried by
+ * the statement matching of {@code UMLOperationBodyMapper}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReplacementBenchmark {
+    private static final int MAXIMUM_NUMBER_OF_REPLACEMENTS = 10000;
+    @Param({"extractMethod", "moveAndRenameClass", "pullUpMethod"})
+    public String corpusName;
+    private final List<String[]> replacements = new ArrayList<>();
+
+    @Setup
+    public void collectReplacements() {
+        Corpus corpus = new Corpus(corpusName);
+        UMLModel parentModel = corpus.createModelBefore(null);
+        UMLModel currentModel = corpus.createModelCurrent(null);
+        for (UMLClass originalClass : parentModel.getClassList()) {
+            UMLClass nextClass = currentModel.getClass(originalClass);
+            if (nextClass == null) {
+                continue;
+            }
+            for (UMLOperation operation1 : originalClass.getOperations()) {
+                UMLOperation operation2 = nextClass.operationWithTheSameSignature(operation1);
+                if (operation2 != null && operation1.getBody() != null && operation2.getBody() != null) {
+                    List<StatementObject> leaves1 = operation1.getBody().getCompositeStatement().getLeaves();
+                    List<StatementObject> leaves2 = operation2.getBody().getCompositeStatement().getLeaves();
+                    for (StatementObject leaf1 : leaves1) {
+                        for (StatementObject leaf2 : leaves2) {
+                            addReplacements(leaf1, leaf2);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void addReplacements(StatementObject leaf1, StatementObject leaf2) {
+        for (String variable1 : leaf1.getVariables()) {
+            for (String variable2 : leaf2.getVariables()) {
+                if (!variable1.equals(variable2) && replacements.size() < MAXIMUM_NUMBER_OF_REPLACEMENTS) {
+                    replacements.add(new String[]{leaf1.getString(), leaf2.getString(), variable1, variable2});
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void performReplacement(Blackhole blackhole) {
+        for (String[] replacement : replacements) {
+            blackhole.consume(ReplacementUtil.performReplacement(replacement[0], replacement[1], replacement[2], replacement[3]));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.refactoringminer.benchmarks;
+
+import gr.uom.java.xmi.diff.StringDistance;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Edit distances between the lines of the two versions of each file, computed with {@link StringDistance}
+ * and with commons-text {@link LevenshteinDistance}, unbounded and bounded by a quarter of the longer line
+ * as when replacements are evaluated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StringDistanceBenchmark {
+    @Param({"extractMethod", "moveAndRenameClass", "pullUpMethod"})
+    public String corpusName;
+    private final List<String[]> lines = new ArrayList<>();
+    private final List<Integer> thresholds = new ArrayList<>();
+
+    @Setup
+    public void collectLines() {
+        Corpus corpus = new Corpus(corpusName);
+        for (String path : corpus.getFileContentsBefore().keySet()) {
+            String contentsCurrent = corpus.getFileContentsCurrent().get(path);
+            if (contentsCurrent == null) {
+                continue;
+            }
+            String[] lines1 = corpus.getFileContentsBefore().get(path).split("\n");
+            String[] lines2 = contentsCurrent.split("\n");
+            for (String line1 : lines1) {
+                for (String line2 : lines2) {
+                    lines.add(new String[]{line1.trim(), line2.trim()});
+                    thresholds.add(Math.max(line1.trim().length(), line2.trim().length()) / 4);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void editDistance(Blackhole blackhole) {
+        for (String[] pair : lines) {
+            blackhole.consume(StringDistance.editDistance(pair[0], pair[1]));
+        }
+    }
+
+    @Benchmark
+    public void levenshteinDistance(Blackhole blackhole) {
+        for (String[] pair : lines) {
+            blackhole.consume(new LevenshteinDistance().apply(pair[0], pair[1]));
+        }
+    }
+
+    @Benchmark
+    public void boundedEditDistance(Blackhole blackhole) {
+        for (int i = 0; i < lines.size(); i++) {
+            String[] pair = lines.get(i);
+            blackhole.consume(StringDistance.editDistance(pair[0], pair[1], thresholds.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void boundedLevenshteinDistance(Blackhole blackhole) {
+        for (int i = 0; i < lines.size(); i++) {
+            String[] pair = lines.get(i);
+            blackhole.consume(new LevenshteinDistance(thresholds.get(i)).apply(pair[0], pair[1]));
+        }
+    }
+}
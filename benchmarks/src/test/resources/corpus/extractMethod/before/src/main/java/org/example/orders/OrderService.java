@@ -0,0 +1,85 @@
+package org.example.orders;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class OrderService {
+    private static final BigDecimal FREE_SHIPPING_THRESHOLD = new BigDecimal("50.00");
+    private static final BigDecimal SHIPPING_COST = new BigDecimal("4.99");
+    private final Map<String, Integer> stock;
+    private final List<Order> placedOrders = new ArrayList<>();
+    private final NotificationSender sender;
+
+    public OrderService(Map<String, Integer> stock, NotificationSender sender) {
+        this.stock = stock;
+        this.sender = sender;
+    }
+
+    public BigDecimal placeOrder(Order order) {
+        if (order.getCustomer() == null) {
+            throw new IllegalArgumentException("Order without customer");
+        }
+        if (order.getLines().isEmpty()) {
+            throw new IllegalArgumentException("Order without lines");
+        }
+        for (OrderLine line : order.getLines()) {
+            Integer available = stock.get(line.getProductId());
+            if (available == null || available < line.getQuantity()) {
+                throw new IllegalStateException("Not enough stock for " + line.getProductId());
+            }
+        }
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderLine line : order.getLines()) {
+            BigDecimal price = line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity()));
+            if (line.getDiscount() != null) {
+                price = price.subtract(price.multiply(line.getDiscount()));
+            }
+            total = total.add(price);
+        }
+        if (total.compareTo(FREE_SHIPPING_THRESHOLD) < 0) {
+            total = total.add(SHIPPING_COST);
+        }
+        total = total.setScale(2, RoundingMode.HALF_UP);
+        for (OrderLine line : order.getLines()) {
+            stock.put(line.getProductId(), stock.get(line.getProductId()) - line.getQuantity());
+        }
+        placedOrders.add(order);
+        String message = "Dear " + order.getCustomer().getName() + ", your order of " + total + " was placed";
+        sender.send(order.getCustomer().getEmail(), message);
+        return total;
+    }
+
+    public BigDecimal quote(Order order) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderLine line : order.getLines()) {
+            BigDecimal price = line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity()));
+            if (line.getDiscount() != null) {
+                price = price.subtract(price.multiply(line.getDiscount()));
+            }
+            total = total.add(price);
+        }
+        return total.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public int cancelOrders(String customerId) {
+        int cancelled = 0;
+        for (int i = placedOrders.size() - 1; i >= 0; i--) {
+            Order order = placedOrders.get(i);
+            if (order.getCustomer().getId().equals(customerId)) {
+                for (OrderLine line : order.getLines()) {
+                    stock.put(line.getProductId(), stock.get(line.getProductId()) + line.getQuantity());
+                }
+                placedOrders.remove(i);
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    public List<Order> getPlacedOrders() {
+        return placedOrders;
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.report;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.example.io.CsvReader;
+
+public class ReportBuilder {
+    private final CsvReader reader = new CsvReader(',', true);
+
+    public Map<String, Double> totalsByRegion(Reader input) throws IOException {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        List<String[]> rows = reader.readAll(input);
+        for (String[] row : rows) {
+            String region = row[0];
+            double amount = Double.parseDouble(row[2]);
+            totals.merge(region, amount, Double::sum);
+        }
+        return totals;
+    }
+
+    public String render(Map<String, Double> totals) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Double> entry : totals.entrySet()) {
+            builder.append(CsvReader.escape(entry.getKey())).append(',').append(String.format("%.2f", entry.getValue())).append('\n');
+        }
+        return builder.toString();
+    }
+}
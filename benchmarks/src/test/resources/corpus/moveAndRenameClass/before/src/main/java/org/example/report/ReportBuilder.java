@@ -0,0 +1,38 @@
+package org.example.report;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.example.util.CsvParser;
+
+public class ReportBuilder {
+    private final CsvParser parser = new CsvParser(',', true);
+
+    public Map<String, Double> totalsByRegion(Reader input) throws IOException {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        List<String[]> rows = parser.parse(input);
+        for (String[] row : rows) {
+            String region = row[0];
+            double amount = Double.parseDouble(row[2]);
+            totals.merge(region, amount, Double::sum);
+        }
+        return totals;
+    }
+
+    public String render(Map<String, Double> totals) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Double> entry : totals.entrySet()) {
+            builder.append(escape(entry.getKey())).append(',').append(String.format("%.2f", entry.getValue())).append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String escape(String field) {
+        if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0) {
+            return '"' + field.replace("\"", "\"\"") + '"';
+        }
+        return field;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvParser {
+    private final char separator;
+    private final boolean skipHeader;
+
+    public CsvParser(char separator, boolean skipHeader) {
+        this.separator = separator;
+        this.skipHeader = skipHeader;
+    }
+
+    public List<String[]> parse(Reader reader) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+        boolean first = true;
+        while ((line = bufferedReader.readLine()) != null) {
+            if (first && skipHeader) {
+                first = false;
+                continue;
+            }
+            first = false;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            rows.add(split(line));
+        }
+        return rows;
+    }
+
+    private String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == separator && !quoted) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.shapes;
+
+public class Rectangle extends Shape {
+    private final double width;
+    private final double height;
+
+    public Rectangle(String name, double width, double height) {
+        super(name);
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public double area() {
+        return width * height;
+    }
+
+    @Override
+    public double perimeter() {
+        return 2 * (width + height);
+    }
+
+    public boolean isSquare() {
+        return Double.compare(width, height) == 0;
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.shapes;
+
+public abstract class Shape {
+    protected final String name;
+
+    protected Shape(String name) {
+        this.name = name;
+    }
+
+    public abstract double area();
+
+    public abstract double perimeter();
+
+    public String describe() {
+        StringBuilder description = new StringBuilder();
+        description.append(name).append(" [");
+        description.append("area=").append(String.format("%.3f", area()));
+        description.append(", perimeter=").append(String.format("%.3f", perimeter()));
+        description.append("]");
+        return description.toString();
+    }
+
+    public boolean isLargerThan(Shape other) {
+        return area() > other.area();
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.shapes;
+
+public class Circle extends Shape {
+    private final double radius;
+
+    public Circle(String name, double radius) {
+        super(name);
+        this.radius = radius;
+    }
+
+    @Override
+    public double area() {
+        return Math.PI * radius * radius;
+    }
+
+    @Override
+    public double perimeter() {
+        return 2 * Math.PI * radius;
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name).append(" [");
+        sb.append("area=").append(String.format("%.3f", area()));
+        sb.append(", perimeter=").append(String.format("%.3f", perimeter()));
+        sb.append("]");
+        return sb.toString();
+    }
+
+    public boolean isLargerThan(Shape other) {
+        double thisArea = area();
+        double otherArea = other.area();
+        return thisArea > otherArea;
+    }
+}
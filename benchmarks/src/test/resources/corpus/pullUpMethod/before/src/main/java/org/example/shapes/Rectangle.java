@@ -0,0 +1,41 @@
+package org.example.shapes;
+
+public class Rectangle extends Shape {
+    private final double width;
+    private final double height;
+
+    public Rectangle(String name, double width, double height) {
+        super(name);
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public double area() {
+        return width * height;
+    }
+
+    @Override
+    public double perimeter() {
+        return 2 * (width + height);
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name).append(" [");
+        sb.append("area=").append(String.format("%.3f", area()));
+        sb.append(", perimeter=").append(String.format("%.3f", perimeter()));
+        sb.append("]");
+        return sb.toString();
+    }
+
+    public boolean isLargerThan(Shape other) {
+        double thisArea = area();
+        double otherArea = other.area();
+        return thisArea > otherArea;
+    }
+
+    public boolean isSquare() {
+        return Double.compare(width, height) == 0;
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.shapes;
+
+public abstract class Shape {
+    protected final String name;
+
+    protected Shape(String name) {
+        this.name = name;
+    }
+
+    public abstract double area();
+
+    public abstract double perimeter();
+}
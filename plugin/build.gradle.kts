@@ -34,6 +34,16 @@ open class IOCliTask : org.jetbrains.intellij.tasks.RunIdeTask() {
     @get:Optional
     val output: String? by project
 
+    // Output format: json (default) or ndjson for one commit per line
+    @get:Input
+    @get:Optional
+    val format: String? by project
+
+    // Shard to analyze as <index>/<count>, or the comma-separated shard outputs to merge
+    @get:Input
+    @get:Optional
+    val shard: String? by project
+
     init {
         jvmArgs = listOf(
             "-Djava.awt.headless=true",
@@ -58,7 +68,9 @@ tasks {
             startPosition,
             endPosition,
             timeout,
-            output
+            output,
+            format,
+            shard
         ).map { it.orEmpty() }
     }
 }
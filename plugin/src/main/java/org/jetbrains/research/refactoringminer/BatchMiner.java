@@ -0,0 +1,290 @@
+package org.jetbrains.research.refactoringminer;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.uom.java.xmi.PsiFileCache;
+import org.eclipse.jgit.lib.Repository;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.refactoringminer.api.GitService;
+import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
+import org.refactoringminer.util.GitServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Mines the repositories listed in a manifest on a pool of workers, writing the refactorings of every repository
+ * to its own output file and the outcome of every repository to a summary file.
+ * <p>
+ * The manifest is either a JSON array of objects, or a CSV file with one repository per line, with the fields
+ * {@code repo}, {@code branch}, {@code start}, {@code end} and {@code output}. The commits between {@code start} and
+ * {@code end} are analyzed when both are given, otherwise all the commits of {@code branch} (of all branches when it
+ * is empty). When {@code output} is empty, the output is written next to the summary, named after the repository,
+ * followed by the index of the entry in the manifest when other entries have a repository with the same name.
+ * The outputs of all entries and the summary must be different files.
+ * <p>
+ * The miners of all repositories share one cache of parsed files, which is keyed by blob id and so holds identical
+ * files of forks and vendored code once.
+ */
+public class BatchMiner {
+    private static final Logger logger = LoggerFactory.getLogger(BatchMiner.class);
+    private static final int SHARED_PARSED_FILE_CACHE_SIZE = 2000;
+
+    private final int workers;
+    private final long repositoryTimeoutSeconds;
+    private final long globalTimeoutSeconds;
+    private final boolean ndjson;
+    private final PsiFileCache psiFileCache = new PsiFileCache(SHARED_PARSED_FILE_CACHE_SIZE);
+
+    public static class Entry {
+        @NotNull
+        private final String repo;
+        @Nullable
+        private final String branch;
+        @Nullable
+        private final String start;
+        @Nullable
+        private final String end;
+        @Nullable
+        private final String output;
+
+        public Entry(@NotNull String repo, @Nullable String branch, @Nullable String start, @Nullable String end,
+                     @Nullable String output) {
+            this.repo = repo;
+            this.branch = branch;
+            this.start = start;
+            this.end = end;
+            this.output = output;
+        }
+    }
+
+    private static class Result {
+        private final String status;
+        private final String output;
+        private final long durationMillis;
+        private final int commits;
+        private final int errors;
+        private final int refactorings;
+        private final String message;
+
+        private Result(String status, String output, long durationMillis, int commits, int errors, int refactorings,
+                       String message) {
+            this.status = status;
+            this.output = output;
+            this.durationMillis = durationMillis;
+            this.commits = commits;
+            this.errors = errors;
+            this.refactorings = refactorings;
+            this.message = message;
+        }
+    }
+
+    /**
+     * @param workers                  The number of repositories mined at the same time
+     * @param repositoryTimeoutSeconds The maximum time spent on a repository, or 0 for no limit
+     * @param globalTimeoutSeconds     The maximum time spent on the whole manifest, or 0 for no limit
+     * @param ndjson                   Whether to write one commit per line in the output of every repository
+     */
+    public BatchMiner(int workers, long repositoryTimeoutSeconds, long globalTimeoutSeconds, boolean ndjson) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("The number of workers must be at least 1, but was " + workers);
+        }
+        this.workers = workers;
+        this.repositoryTimeoutSeconds = repositoryTimeoutSeconds;
+        this.globalTimeoutSeconds = globalTimeoutSeconds;
+        this.ndjson = ndjson;
+    }
+
+    public static List<Entry> readManifest(@NotNull Path manifest) throws IOException {
+        String content = Files.readString(manifest, StandardCharsets.UTF_8);
+        List<Entry> entries = new ArrayList<>();
+        if (content.trim().startsWith("[")) {
+            for (JsonNode node : new ObjectMapper().readTree(content)) {
+                if (!node.hasNonNull("repo")) {
+                    throw new IllegalArgumentException("Manifest entry without repo: " + node);
+                }
+                entries.add(new Entry(node.get("repo").asText(), text(node, "branch"), text(node, "start"),
+                    text(node, "end"), text(node, "output")));
+            }
+            return entries;
+        }
+        for (String line : content.split("\\R")) {
+            if (line.isBlank() || line.startsWith("#") || line.startsWith("repo,")) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            entries.add(new Entry(fields[0].trim(), field(fields, 1), field(fields, 2), field(fields, 3),
+                field(fields, 4)));
+        }
+        return entries;
+    }
+
+    /**
+     * Mine the repositories of the manifest and write the summary once all of them are done. The repositories
+     * stop at their own timeout or at the global timeout, whichever comes first, and the repositories that were not
+     * started before the global timeout are reported as skipped. No repository is mined when the outputs of two
+     * entries, or of an entry and the summary, are the same file.
+     */
+    public void mine(@NotNull List<Entry> entries, @NotNull Path summary) throws IOException, InterruptedException {
+        List<Path> outputs = outputs(entries, summary);
+        AtomicReferenceArray<Result> results = new AtomicReferenceArray<>(entries.size());
+        long globalDeadline = globalTimeoutSeconds > 0 ?
+            System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(globalTimeoutSeconds) : 0;
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            for (int i = 0; i < entries.size(); i++) {
+                int index = i;
+                pool.execute(() -> results.set(index, mine(entries.get(index), outputs.get(index), globalDeadline)));
+            }
+            pool.shutdown();
+            //every walk stops at its deadline, so the summary is written once all the workers are done
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            pool.shutdownNow();
+        }
+        writeSummary(entries, results, summary);
+    }
+
+    /**
+     * @return The output of every entry, in the order of the entries.
+     * @throws IllegalArgumentException If two entries have the same output, or an entry has the summary as output.
+     */
+    List<Path> outputs(@NotNull List<Entry> entries, @NotNull Path summary) {
+        Path outputFolder = summary.toAbsolutePath().getParent();
+        Map<String, Integer> repositoryNames = new HashMap<>();
+        for (Entry entry : entries) {
+            if (entry.output == null) {
+                repositoryNames.merge(repositoryName(entry), 1, Integer::sum);
+            }
+        }
+        String extension = ndjson ? ".ndjson" : ".json";
+        Map<Path, Integer> entryOfOutput = new HashMap<>();
+        entryOfOutput.put(summary.toAbsolutePath().normalize(), -1);
+        List<Path> outputs = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            Path output;
+            if (entry.output != null) {
+                output = Path.of(entry.output);
+            } else {
+                String name = repositoryName(entry);
+                output = outputFolder.resolve(repositoryNames.get(name) > 1 ? name + "-" + i + extension : name + extension);
+            }
+            Integer other = entryOfOutput.putIfAbsent(output.toAbsolutePath().normalize(), i);
+            if (other != null) {
+                throw new IllegalArgumentException("The output " + output + " of " + entry.repo + " is also " +
+                    (other < 0 ? "the summary" : "the output of " + entries.get(other).repo));
+            }
+            outputs.add(output);
+        }
+        return outputs;
+    }
+
+    private static String repositoryName(Entry entry) {
+        return String.valueOf(Path.of(entry.repo).normalize().getFileName());
+    }
+
+    @Nullable
+    private Result mine(Entry entry, Path output, long globalDeadline) {
+        long start = System.currentTimeMillis();
+        if (globalDeadline > 0 && start >= globalDeadline) {
+            return null;
+        }
+        long deadline = repositoryTimeoutSeconds > 0 ? start + TimeUnit.SECONDS.toMillis(repositoryTimeoutSeconds) : 0;
+        if (globalDeadline > 0 && (deadline == 0 || globalDeadline < deadline)) {
+            deadline = globalDeadline;
+        }
+        int[] counts = new int[3];
+        String status = "ok";
+        String message = null;
+        GitService gitService = new GitServiceImpl();
+        GitHistoryRefactoringMinerImpl detector = new GitHistoryRefactoringMinerImpl();
+        detector.setParsedFileCache(psiFileCache);
+        detector.setWalkDeadline(deadline);
+        try (Repository repo = gitService.openRepository(entry.repo);
+             JsonOutput out = new JsonOutput(output, ndjson)) {
+            String gitURL = repo.getConfig().getString("remote", "origin", "url");
+            OutputRefactoringHandler handler = new OutputRefactoringHandler(gitURL != null ? gitURL : entry.repo, out, false) {
+                @Override
+                public void onFinish(int refactoringsCount, int commitsCount, int errorCommitsCount) {
+                    counts[0] = commitsCount;
+                    counts[1] = errorCommitsCount;
+                    counts[2] = refactoringsCount;
+                }
+            };
+            if (entry.start != null && entry.end != null) {
+                detector.detectBetweenCommits(repo, entry.start, entry.end, handler);
+            } else {
+                detector.detectAll(repo, entry.branch, handler);
+            }
+            if (detector.isWalkStopped()) {
+                status = "timeout";
+            }
+        } catch (Exception e) {
+            logger.error("Error mining " + entry.repo, e);
+            status = "error";
+            message = String.valueOf(e.getMessage());
+        }
+        return new Result(status, output.toString(), System.currentTimeMillis() - start,
+            counts[0], counts[1], counts[2], message);
+    }
+
+    private static void writeSummary(List<Entry> entries, AtomicReferenceArray<Result> results, Path summary)
+        throws IOException {
+        try (OutputStream out = Files.newOutputStream(summary);
+             JsonGenerator generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.setPrettyPrinter(new DefaultPrettyPrinter());
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("repositories");
+            for (int i = 0; i < entries.size(); i++) {
+                Result result = results.get(i);
+                generator.writeStartObject();
+                generator.writeStringField("repo", entries.get(i).repo);
+                if (result == null) {
+                    generator.writeStringField("status", "skipped");
+                } else {
+                    generator.writeStringField("status", result.status);
+                    generator.writeStringField("output", result.output);
+                    generator.writeNumberField("durationMillis", result.durationMillis);
+                    generator.writeNumberField("commits", result.commits);
+                    generator.writeNumberField("errors", result.errors);
+                    generator.writeNumberField("refactorings", result.refactorings);
+                    if (result.message != null) {
+                        generator.writeStringField("message", result.message);
+                    }
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    @Nullable
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() || value.asText().isBlank() ? null : value.asText();
+    }
+
+    @Nullable
+    private static String field(String[] fields, int index) {
+        return index < fields.length && !fields[index].isBlank() ? fields[index].trim() : null;
+    }
+}
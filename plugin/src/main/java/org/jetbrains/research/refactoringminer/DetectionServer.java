@@ -0,0 +1,322 @@
+package org.jetbrains.research.refactoringminer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.eclipse.jgit.errors.AmbiguousObjectException;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.refactoringminer.util.GitServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves detection requests over HTTP(S) from a running IDE instance, so that the platform is started once
+ * for many requests. A request names the command in its path and the arguments in its query, e.g.
+ * {@code /detectAtCommit?repo=<git-repo-folder>&commit=<commit-sha1>}, and receives the output of the command.
+ * The repository and the commits or tags of a request are checked before the output is started, so that an
+ * invalid request is answered with 400 or 404 instead of an empty output.
+ * <p>
+ * Requests are processed by a fixed number of workers; when all workers are busy and the queue of waiting
+ * requests is full, a request is answered with 503 so that the client can retry later.
+ */
+public class DetectionServer {
+    private static final Logger logger = LoggerFactory.getLogger(DetectionServer.class);
+    private static final String DEFAULT_HOSTNAME = "localhost";
+    private static final int DEFAULT_PORT = 6789;
+
+    @NotNull
+    private final RefactoringMiner miner;
+    @NotNull
+    private final HttpServer server;
+    @NotNull
+    private final ThreadPoolExecutor workers;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * Create a server configured by the properties {@code hostname}, {@code port}, {@code keystore} and
+     * {@code keystore-password} (HTTPS is used when a keystore is given), {@code workers} and {@code queue}.
+     */
+    public DetectionServer(@NotNull RefactoringMiner miner, @NotNull Properties properties) throws Exception {
+        this.miner = miner;
+        String hostname = property(properties, "hostname", DEFAULT_HOSTNAME);
+        int port = Integer.parseInt(property(properties, "port", String.valueOf(DEFAULT_PORT)));
+        InetSocketAddress address = new InetSocketAddress(hostname, port);
+        String keystore = property(properties, "keystore", null);
+        if (keystore != null) {
+            HttpsServer httpsServer = HttpsServer.create(address, 0);
+            httpsServer.setHttpsConfigurator(new HttpsConfigurator(
+                sslContext(Path.of(keystore), property(properties, "keystore-password", ""))));
+            server = httpsServer;
+        } else {
+            server = HttpServer.create(address, 0);
+        }
+        int workerCount = Integer.parseInt(property(properties, "workers",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int queueCapacity = Integer.parseInt(property(properties, "queue", String.valueOf(4 * workerCount)));
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity));
+        server.createContext("/", this::dispatch);
+    }
+
+    public static Properties readProperties(@NotNull Path path) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(path)) {
+            try (InputStream input = Files.newInputStream(path)) {
+                properties.load(input);
+            }
+        } else {
+            logger.warn("File {} was not found, using the default server settings", path);
+        }
+        return properties;
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Serving detection requests at {}", server.getAddress());
+    }
+
+    /**
+     * Wait until the server is stopped.
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stop accepting requests and wait for the requests in progress to finish.
+     */
+    public void stop() {
+        server.stop(0);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopped.countDown();
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        try {
+            workers.execute(() -> process(exchange));
+        } catch (RejectedExecutionException e) {
+            respond(exchange, 503, "Too many pending requests");
+        }
+    }
+
+    private void process(HttpExchange exchange) {
+        boolean started = false;
+        try {
+            String command = exchange.getRequestURI().getPath().substring(1);
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String repo = query.get("repo");
+            if (repo == null) {
+                throw new RequestException(400, "Missing parameter repo");
+            }
+            checkParameters(command, query);
+            boolean ndjson = "ndjson".equals(query.get("format"));
+            try (Repository repository = openRepository(repo)) {
+                checkRevisions(repository, command, query);
+                //the output is streamed, so errors after this point can no longer change the status
+                exchange.sendResponseHeaders(200, 0);
+                started = true;
+                try (JsonOutput out = new JsonOutput(exchange.getResponseBody(), ndjson)) {
+                    switch (command) {
+                        case "detectAll":
+                            miner.detectAll(out, repository, query.get("branch"), query.get("shard"));
+                            break;
+                        case "detectBetweenCommits":
+                            miner.detectBetweenCommits(out, repository, query.get("start"), query.get("end"),
+                                query.get("shard"));
+                            break;
+                        case "detectBetweenTags":
+                            miner.detectBetweenTags(out, repository, query.get("start"), query.get("end"));
+                            break;
+                        case "detectAtCommit":
+                            miner.detectAtCommit(out, repository, query.get("commit"));
+                            break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            if (started) {
+                //the response was already started, so the error can only be logged
+                logger.error("Error processing request " + exchange.getRequestURI(), e);
+            } else {
+                respondError(exchange, e);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Check the command and its parameters, before the repository is opened.
+     */
+    private static void checkParameters(String command, Map<String, String> query) throws RequestException {
+        switch (command) {
+            case "detectAll":
+                break;
+            case "detectBetweenCommits":
+            case "detectBetweenTags":
+                if (!query.containsKey("start") || !query.containsKey("end")) {
+                    throw new RequestException(400, "Missing parameter start or end");
+                }
+                break;
+            case "detectAtCommit":
+                if (!query.containsKey("commit")) {
+                    throw new RequestException(400, "Missing parameter commit");
+                }
+                break;
+            default:
+                throw new RequestException(404, "Unknown command " + command);
+        }
+        try {
+            RefactoringMiner.parseShard(query.get("shard"));
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, e.getMessage());
+        }
+    }
+
+    private static Repository openRepository(String repo) throws Exception {
+        Repository repository;
+        try {
+            repository = new GitServiceImpl().openRepository(repo);
+        } catch (FileNotFoundException e) {
+            throw new RequestException(404, "Repository not found: " + repo);
+        }
+        if (!repository.getObjectDatabase().exists()) {
+            repository.close();
+            throw new RequestException(404, "Not a git repository: " + repo);
+        }
+        return repository;
+    }
+
+    /**
+     * Check that the commits or tags of the request exist in the repository.
+     */
+    private static void checkRevisions(Repository repository, String command, Map<String, String> query)
+        throws Exception {
+        switch (command) {
+            case "detectBetweenCommits":
+                checkCommit(repository, query.get("start"));
+                checkCommit(repository, query.get("end"));
+                break;
+            case "detectBetweenTags":
+                checkTag(repository, query.get("start"));
+                checkTag(repository, query.get("end"));
+                break;
+            case "detectAtCommit":
+                checkCommit(repository, query.get("commit"));
+                break;
+        }
+    }
+
+    private static void checkCommit(Repository repository, String commit) throws Exception {
+        ObjectId id;
+        try {
+            id = repository.resolve(commit);
+        } catch (RevisionSyntaxException | AmbiguousObjectException e) {
+            throw new RequestException(400, "Invalid commit " + commit);
+        }
+        if (id == null) {
+            throw new RequestException(404, "Commit not found: " + commit);
+        }
+    }
+
+    private static void checkTag(Repository repository, String tag) throws Exception {
+        if (repository.findRef(tag) == null) {
+            throw new RequestException(404, "Tag not found: " + tag);
+        }
+    }
+
+    private static void respondError(HttpExchange exchange, Exception e) {
+        try {
+            if (e instanceof RequestException) {
+                respond(exchange, ((RequestException) e).status, e.getMessage());
+            } else {
+                logger.error("Error processing request " + exchange.getRequestURI(), e);
+                respond(exchange, 500, "Error processing request: " + e.getMessage());
+            }
+        } catch (IOException ioe) {
+            logger.error("Error responding to request " + exchange.getRequestURI(), ioe);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(@Nullable String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int indexOfEquals = parameter.indexOf('=');
+            if (indexOfEquals > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, indexOfEquals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(parameter.substring(indexOfEquals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * An invalid request, answered with the given status before the output of the command is started.
+     */
+    private static class RequestException extends Exception {
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private static String property(Properties properties, String name, String defaultValue) {
+        String value = properties.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    private static SSLContext sslContext(Path keystore, String password) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (InputStream input = Files.newInputStream(keystore)) {
+            keyStore.load(input, password.toCharArray());
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, password.toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+        return sslContext;
+    }
+}
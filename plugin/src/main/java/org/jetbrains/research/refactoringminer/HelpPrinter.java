@@ -34,7 +34,16 @@ public class HelpPrinter {
         List<String> githubPR = List.of("detectAtGitHubPullRequest",
             "Detect refactorings at specified pull request <pull-request> " +
                 "for project <git-URL> for each commit in the pull request");
-        List<List<String>> table = List.of(detectAll, betweenCommits, betweenTags, atCommit, githubCommit, githubPR);
+        List<String> daemon = List.of("daemon",
+            "Serve detection requests over HTTP with the settings of <server-properties> (server.properties by default)");
+        List<String> batch = List.of("detectBatch",
+            "Detect refactorings in every repository of <manifest> with <workers> repositories at a time, " +
+                "stopping after <global-timeout> seconds");
+        List<String> merge = List.of("mergeShards",
+            "Merge the outputs <shard> of the shards of the history of <git-repo-folder> " +
+                "at <branch> or between <start-commit-sha1> and <end-commit-sha1>");
+        List<List<String>> table =
+            List.of(detectAll, betweenCommits, betweenTags, atCommit, githubCommit, githubPR, daemon, batch, merge);
 
         out.println("Command description:");
         printTable(table);
@@ -43,8 +52,16 @@ public class HelpPrinter {
 
     private void printCommonTips() {
         out.println("For all commands, you can define the <output> argument to save the output in a JSON file.");
+        out.println("For all commands, you can define the <format> argument as ndjson to output one commit per line.");
         out.println("For detectAtGitHubCommit and detectAtGitHubPullRequest commands, " +
             "you can define the <timeout> argument to set the maximum execution time in seconds.");
+        out.println("The daemon command accepts requests such as " +
+            "/detectAtCommit?repo=<git-repo-folder>&commit=<commit-sha1> until it is stopped.");
+        out.println("For detectBatch command, the <output> argument is the summary file, next to which the output " +
+            "of every repository is written, and the <timeout> argument is the maximum time per repository in seconds.");
+        out.println("For detectAll and detectBetweenCommits commands, you can define the <shard> argument as " +
+            "<index>/<count> to analyze one of <count> shards of similar cost.");
+        out.println("For mergeShards command, the <shard> argument is the comma-separated list of shard outputs.");
         out.println("For commands using GitHub, you must provide a valid OAuthToken in github-oauth.properties.");
         out.println();
     }
@@ -58,8 +75,11 @@ public class HelpPrinter {
         List<String> atCommit = List.of("detectAtCommit", "<git-repo-folder>", "<commit-sha1>", "");
         List<String> githubCommit = List.of("detectAtGitHubCommit", "<git-URL>", "<commit-sha1>", "");
         List<String> githubPR = List.of("detectAtGitHubPullRequest", "<git-URL>", "<pull-request>", "");
-        List<List<String>> table =
-            List.of(headers, detectAll, betweenCommits, betweenTags, atCommit, githubCommit, githubPR);
+        List<String> daemon = List.of("daemon", "<server-properties>", "", "");
+        List<String> batch = List.of("detectBatch", "<manifest>", "<workers>", "<global-timeout>");
+        List<String> merge = List.of("mergeShards", "<git-repo-folder>", "<branch|start-commit-sha1>", "<end-commit-sha1>");
+        List<List<String>> table = List.of(headers, detectAll, betweenCommits, betweenTags, atCommit, githubCommit,
+            githubPR, daemon, batch, merge);
 
         out.println("Command usage:");
         printTable(table);
@@ -1,5 +1,11 @@
 package org.jetbrains.research.refactoringminer;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.refactoringminer.api.Refactoring;
@@ -9,61 +15,108 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
+/**
+ * Streams the detected refactorings as JSON, either as a single {@code {"commits": [...]}} document,
+ * or as newline-delimited JSON with one commit object per line.
+ */
 public class JsonOutput implements AutoCloseable {
     @NotNull
     private static final OutputStream defaultOutput = System.out;
     @NotNull
     private final OutputStream output;
+    @NotNull
+    private final JsonGenerator generator;
+    private final boolean ndjson;
+    @NotNull
+    private final ObjectMapper mapper = new ObjectMapper();
     private boolean isEmpty = true;
 
     public JsonOutput(@Nullable Path pathToJson) throws IOException {
-        if (pathToJson != null) {
-            output = Files.newOutputStream(pathToJson);
-        } else {
-            output = defaultOutput;
+        this(pathToJson, false);
+    }
+
+    /**
+     * @param ndjson Whether to write one commit per line instead of a single JSON document
+     */
+    public JsonOutput(@Nullable Path pathToJson, boolean ndjson) throws IOException {
+        this(pathToJson != null ? Files.newOutputStream(pathToJson) : defaultOutput, ndjson);
+    }
+
+    /**
+     * @param output The stream to write to, which is closed with this output unless it is the standard output
+     * @param ndjson Whether to write one commit per line instead of a single JSON document
+     */
+    public JsonOutput(@NotNull OutputStream output, boolean ndjson) throws IOException {
+        this.output = output;
+        this.ndjson = ndjson;
+        JsonFactory factory = new JsonFactory();
+        factory.setRootValueSeparator(null);
+        generator = factory.createGenerator(output, JsonEncoding.UTF8);
+        generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        if (!ndjson) {
+            generator.setPrettyPrinter(new DefaultPrettyPrinter());
         }
     }
 
     public void commit(@NotNull String repositoryURL, @NotNull String revisionURL, @NotNull String revisionId,
                        @NotNull List<@NotNull Refactoring> refactoringsAtRevision) throws IOException {
+        commit(repositoryURL, revisionURL, revisionId, refactoringsAtRevision, null);
+    }
+
+    /**
+     * @param skippedPhases The phases skipped when the time budget of the commit was exhausted, or null if none were
+     */
+    public void commit(@NotNull String repositoryURL, @NotNull String revisionURL, @NotNull String revisionId,
+                       @NotNull List<@NotNull Refactoring> refactoringsAtRevision,
+                       @Nullable List<String> skippedPhases) throws IOException {
         if (isEmpty) {
             startJson();
             isEmpty = false;
-        } else {
-            betweenCommits();
         }
-        StringBuilder sb = new StringBuilder();
-        sb.append("{").append("\n");
-        sb.append("\t").append("\"").append("repository").append("\"").append(": ").append("\"")
-            .append(repositoryURL).append("\"").append(",").append("\n");
-        sb.append("\t").append("\"").append("sha1").append("\"").append(": ").append("\"")
-            .append(revisionId).append("\"").append(",").append("\n");
-        sb.append("\t").append("\"").append("url").append("\"").append(": ").append("\"")
-            .append(revisionURL).append("\"").append(",").append("\n");
-        sb.append("\t").append("\"").append("refactorings").append("\"").append(": ");
-        sb.append("[");
-        int counter = 0;
+        generator.writeStartObject();
+        generator.writeStringField("repository", repositoryURL);
+        generator.writeStringField("sha1", revisionId);
+        generator.writeStringField("url", revisionURL);
+        generator.writeArrayFieldStart("refactorings");
         for (Refactoring refactoring : refactoringsAtRevision) {
-            sb.append(refactoring.toJSON());
-            if (counter < refactoringsAtRevision.size() - 1) {
-                sb.append(",");
+            refactoring.writeJSON(generator);
+        }
+        generator.writeEndArray();
+        if (skippedPhases != null) {
+            generator.writeBooleanField("partial", true);
+            generator.writeArrayFieldStart("skippedPhases");
+            for (String phase : skippedPhases) {
+                generator.writeString(phase);
             }
-            sb.append("\n");
-            counter++;
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+        if (ndjson) {
+            generator.writeRaw('\n');
         }
-        sb.append("]").append("\n");
-        sb.append("}");
-        output.write(sb.toString().getBytes());
+        generator.flush();
     }
 
-    private void betweenCommits() throws IOException {
-        output.write(",\n".getBytes());
+    /**
+     * Write a commit object that was read from the output of an earlier run.
+     */
+    public void commit(@NotNull JsonNode commit) throws IOException {
+        if (isEmpty) {
+            startJson();
+            isEmpty = false;
+        }
+        mapper.writeTree(generator, commit);
+        if (ndjson) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
     }
 
     private void startJson() throws IOException {
-        String header = "{\n" +
-            "\"commits\": [\n";
-        output.write(header.getBytes());
+        if (!ndjson) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("commits");
+        }
     }
 
     @Override
@@ -71,12 +124,18 @@ public class JsonOutput implements AutoCloseable {
         if (!isEmpty) {
             endJson();
         }
+        generator.close();
         if (output != defaultOutput) {
             output.close();
+        } else {
+            output.flush();
         }
     }
 
     private void endJson() throws IOException {
-        output.write("]\n}".getBytes());
+        if (!ndjson) {
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
     }
 }
@@ -1,6 +1,7 @@
 package org.jetbrains.research.refactoringminer;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringHandler;
 import org.refactoringminer.rm1.GitHistoryRefactoringMinerImpl;
@@ -17,6 +18,8 @@ public class OutputRefactoringHandler extends RefactoringHandler {
     private final JsonOutput output;
     @NotNull
     private final String repositoryURL;
+    @Nullable
+    private List<String> skippedPhases = null;
 
     /**
      * @param verbose Whether to print the commit statistics at the end of processing
@@ -31,10 +34,16 @@ public class OutputRefactoringHandler extends RefactoringHandler {
     public void handle(String revisionId, List<Refactoring> refactorings) {
         String revisionURL = GitHistoryRefactoringMinerImpl.extractCommitURL(repositoryURL, revisionId);
         try {
-            output.commit(repositoryURL, revisionURL, revisionId, refactorings);
+            output.commit(repositoryURL, revisionURL, revisionId, refactorings, skippedPhases);
         } catch (IOException e) {
             logger.error("Error writing to file", e);
         }
+        skippedPhases = null;
+    }
+
+    @Override
+    public void handlePartialResult(String revisionId, List<String> skippedPhases) {
+        this.skippedPhases = skippedPhases;
     }
 
     @Override
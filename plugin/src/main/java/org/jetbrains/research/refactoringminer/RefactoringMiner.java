@@ -2,6 +2,7 @@ package org.jetbrains.research.refactoringminer;
 
 import com.google.common.base.Strings;
 import com.intellij.openapi.application.ApplicationStarter;
+import gr.uom.java.xmi.PsiFactoryManager;
 import org.eclipse.jgit.lib.Repository;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -12,6 +13,7 @@ import org.refactoringminer.util.GitServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,6 +24,8 @@ public class RefactoringMiner implements ApplicationStarter {
     private static final int END_POSITION = 4;
     private static final int TIMEOUT = 5;
     private static final int JSON = 6;
+    private static final int FORMAT = 7;
+    private static final int SHARD = 8;
     private static final Logger logger = LoggerFactory.getLogger(RefactoringMiner.class);
 
     @Override
@@ -33,18 +37,30 @@ public class RefactoringMiner implements ApplicationStarter {
     public void main(@NotNull List<String> args) {
         args = args.stream().map(Strings::emptyToNull).collect(Collectors.toList());
         Path jsonPath = args.get(JSON) != null ? Path.of(args.get(JSON)) : null;
-        try (JsonOutput out = new JsonOutput(jsonPath)) {
+        boolean ndjson = args.size() > FORMAT && "ndjson".equals(args.get(FORMAT));
+        String shard = args.size() > SHARD ? args.get(SHARD) : null;
+        try (JsonOutput out = new JsonOutput(jsonPath, ndjson)) {
             switch (args.get(OPERATION)) {
                 case "h":
                 case "help":
                     printTips();
                     break;
+                case "daemon":
+                    daemon(args.get(PROJECT_PATH));
+                    break;
+                case "detectBatch":
+                    detectBatch(args.get(PROJECT_PATH), args.get(START_POSITION), args.get(END_POSITION),
+                        args.get(TIMEOUT), jsonPath, ndjson);
+                    break;
                 case "detectAll":
-                    detectAll(out, args.get(PROJECT_PATH), args.get(START_POSITION));
+                    detectAll(out, args.get(PROJECT_PATH), args.get(START_POSITION), shard);
                     break;
                 case "detectBetweenCommits":
                     detectBetweenCommits(out,
-                        args.get(PROJECT_PATH), args.get(START_POSITION), args.get(END_POSITION));
+                        args.get(PROJECT_PATH), args.get(START_POSITION), args.get(END_POSITION), shard);
+                    break;
+                case "mergeShards":
+                    mergeShards(out, args.get(PROJECT_PATH), args.get(START_POSITION), args.get(END_POSITION), shard);
                     break;
                 case "detectBetweenTags":
                     detectBetweenTags(out, args.get(PROJECT_PATH), args.get(START_POSITION), args.get(END_POSITION));
@@ -75,49 +91,139 @@ public class RefactoringMiner implements ApplicationStarter {
         System.exit(0);
     }
 
-    private void detectAll(@NotNull JsonOutput out, @NotNull String folder, @Nullable String branch) throws Exception {
+    private void daemon(@Nullable String propertiesPath) throws Exception {
+        //create the PSI factory before the first request rather than while serving it
+        PsiFactoryManager.getFactory();
+        DetectionServer server = new DetectionServer(this,
+            DetectionServer.readProperties(Path.of(propertiesPath != null ? propertiesPath : "server.properties")));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        server.awaitStop();
+    }
+
+    private void detectBatch(@NotNull String manifest, @Nullable String workers, @Nullable String globalTimeout,
+                             @Nullable String repositoryTimeout, @Nullable Path summary, boolean ndjson)
+        throws Exception {
+        BatchMiner batchMiner = new BatchMiner(
+            workers != null ? Integer.parseInt(workers) : 1,
+            repositoryTimeout != null ? Long.parseLong(repositoryTimeout) : 0,
+            globalTimeout != null ? Long.parseLong(globalTimeout) : 0,
+            ndjson);
+        batchMiner.mine(BatchMiner.readManifest(Path.of(manifest)),
+            summary != null ? summary : Path.of("summary.json"));
+    }
+
+    private void detectAll(@NotNull JsonOutput out, @NotNull String folder, @Nullable String branch,
+                           @Nullable String shard) throws Exception {
         GitService gitService = new GitServiceImpl();
         try (Repository repo = gitService.openRepository(folder)) {
-            String gitURL = repo.getConfig().getString("remote", "origin", "url");
-            GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-            OutputRefactoringHandler handler = new OutputRefactoringHandler(gitURL, out, true);
-            detector.detectAll(repo, branch, handler);
+            detectAll(out, repo, branch, shard);
         }
     }
 
+    void detectAll(@NotNull JsonOutput out, @NotNull Repository repo, @Nullable String branch, @Nullable String shard)
+        throws Exception {
+        String gitURL = repo.getConfig().getString("remote", "origin", "url");
+        GitHistoryRefactoringMinerImpl detector = new GitHistoryRefactoringMinerImpl();
+        setShard(detector, shard);
+        OutputRefactoringHandler handler = new OutputRefactoringHandler(gitURL, out, true);
+        detector.detectAll(repo, branch, handler);
+    }
+
     private void detectBetweenCommits(@NotNull JsonOutput out, @NotNull String folder,
-                                      @NotNull String startCommit, @NotNull String endCommit) throws Exception {
+                                      @NotNull String startCommit, @NotNull String endCommit, @Nullable String shard)
+        throws Exception {
+        GitService gitService = new GitServiceImpl();
+        try (Repository repo = gitService.openRepository(folder)) {
+            detectBetweenCommits(out, repo, startCommit, endCommit, shard);
+        }
+    }
+
+    void detectBetweenCommits(@NotNull JsonOutput out, @NotNull Repository repo,
+                              @NotNull String startCommit, @NotNull String endCommit, @Nullable String shard)
+        throws Exception {
+        String gitURL = repo.getConfig().getString("remote", "origin", "url");
+        GitHistoryRefactoringMinerImpl detector = new GitHistoryRefactoringMinerImpl();
+        setShard(detector, shard);
+        OutputRefactoringHandler handler = new OutputRefactoringHandler(gitURL, out, true);
+        detector.detectBetweenCommits(repo, startCommit, endCommit, handler);
+    }
+
+    private void mergeShards(@NotNull JsonOutput out, @NotNull String folder, @Nullable String start,
+                             @Nullable String end, @Nullable String shardOutputs) throws Exception {
+        if (shardOutputs == null) {
+            throw new IllegalArgumentException("The shard outputs to merge must be given as the <shard> argument");
+        }
+        List<Path> paths = Arrays.stream(shardOutputs.split(",")).map(String::trim).map(Path::of)
+            .collect(Collectors.toList());
         GitService gitService = new GitServiceImpl();
         try (Repository repo = gitService.openRepository(folder)) {
-            String gitURL = repo.getConfig().getString("remote", "origin", "url");
-            GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-            OutputRefactoringHandler handler = new OutputRefactoringHandler(gitURL, out, true);
-            detector.detectBetweenCommits(repo, startCommit, endCommit, handler);
+            new ShardMerger(paths).merge(gitService, repo, start, end, out);
+        }
+    }
+
+    /**
+     * @param shard The shard to analyze as {@code <index>/<count>}, or null to analyze all the commits
+     */
+    private static void setShard(@NotNull GitHistoryRefactoringMinerImpl detector, @Nullable String shard) {
+        int[] indexAndCount = parseShard(shard);
+        if (indexAndCount != null) {
+            detector.setShard(indexAndCount[0], indexAndCount[1]);
+        }
+    }
+
+    /**
+     * @return The index and count of the shard given as {@code <index>/<count>}, or null when no shard is given
+     * @throws IllegalArgumentException if the shard is malformed
+     */
+    @Nullable
+    static int[] parseShard(@Nullable String shard) {
+        if (shard == null) {
+            return null;
+        }
+        String[] indexAndCount = shard.split("/");
+        if (indexAndCount.length != 2) {
+            throw new IllegalArgumentException("Shard must be given as <index>/<count>, but was " + shard);
         }
+        int index = Integer.parseInt(indexAndCount[0].trim());
+        int count = Integer.parseInt(indexAndCount[1].trim());
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException(String.format("Invalid shard %d of %d", index, count));
+        }
+        return new int[]{index, count};
     }
 
     private void detectBetweenTags(@NotNull JsonOutput out, @NotNull String folder,
                                    @NotNull String startTag, @NotNull String endTag) throws Exception {
         GitService gitService = new GitServiceImpl();
         try (Repository repo = gitService.openRepository(folder)) {
-            String gitURL = repo.getConfig().getString("remote", "origin", "url");
-            GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-            OutputRefactoringHandler handler = new OutputRefactoringHandler(gitURL, out, true);
-            detector.detectBetweenTags(repo, startTag, endTag, handler);
+            detectBetweenTags(out, repo, startTag, endTag);
         }
     }
 
+    void detectBetweenTags(@NotNull JsonOutput out, @NotNull Repository repo,
+                           @NotNull String startTag, @NotNull String endTag) throws Exception {
+        String gitURL = repo.getConfig().getString("remote", "origin", "url");
+        GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
+        OutputRefactoringHandler handler = new OutputRefactoringHandler(gitURL, out, true);
+        detector.detectBetweenTags(repo, startTag, endTag, handler);
+    }
+
     private void detectAtCommit(@NotNull JsonOutput out,
                                 @NotNull String folder, @NotNull String commitId) throws Exception {
         GitService gitService = new GitServiceImpl();
         try (Repository repo = gitService.openRepository(folder)) {
-            String gitURL = repo.getConfig().getString("remote", "origin", "url");
-            GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
-            OutputRefactoringHandler handler = new OutputRefactoringHandler(gitURL, out, false);
-            detector.detectAtCommit(repo, commitId, handler);
+            detectAtCommit(out, repo, commitId);
         }
     }
 
+    void detectAtCommit(@NotNull JsonOutput out, @NotNull Repository repo, @NotNull String commitId) {
+        String gitURL = repo.getConfig().getString("remote", "origin", "url");
+        GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
+        OutputRefactoringHandler handler = new OutputRefactoringHandler(gitURL, out, false);
+        detector.detectAtCommit(repo, commitId, handler);
+    }
+
     private void detectAtGitHubCommit(@NotNull JsonOutput out,
                                       @NotNull String gitURL, @NotNull String commitId, int timeout) {
         GitHistoryRefactoringMiner detector = new GitHistoryRefactoringMinerImpl();
@@ -0,0 +1,187 @@
+package org.jetbrains.research.refactoringminer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.refactoringminer.api.GitService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Combines the outputs of the shards of a history (in JSON or NDJSON format) into one output, in which the commits
+ * are in the order of the walk of the unsharded history.
+ * <p>
+ * The commits of every shard output are in the order of the walk, so the outputs are merged while they are read,
+ * holding one commit per shard. Only the commits that are not part of the walk are held until the end and written
+ * last.
+ */
+public class ShardMerger {
+    private static final Logger logger = LoggerFactory.getLogger(ShardMerger.class);
+
+    @NotNull
+    private final List<Path> shardOutputs;
+    @NotNull
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public ShardMerger(@NotNull List<Path> shardOutputs) {
+        this.shardOutputs = shardOutputs;
+    }
+
+    /**
+     * @param start The branch of the history (null for all branches), or its start commit when {@code end} is given
+     * @param end   The end commit of the history, or null
+     */
+    public void merge(@NotNull GitService gitService, @NotNull Repository repository,
+                      @Nullable String start, @Nullable String end, @NotNull JsonOutput out) throws Exception {
+        List<String> walk = walk(gitService, repository, start, end);
+        Set<String> walkCommits = new HashSet<>(walk);
+        List<JsonNode> otherCommits = new ArrayList<>();
+        //the shards by the commit they are at
+        Map<String, ShardReader> shards = new HashMap<>();
+        List<ShardReader> readers = new ArrayList<>();
+        try {
+            for (Path shardOutput : shardOutputs) {
+                ShardReader reader = new ShardReader(shardOutput);
+                readers.add(reader);
+                advance(reader, walkCommits, shards, otherCommits);
+            }
+            for (String sha1 : walk) {
+                ShardReader reader = shards.remove(sha1);
+                if (reader != null) {
+                    out.commit(reader.current);
+                    advance(reader, walkCommits, shards, otherCommits);
+                }
+            }
+            //a shard whose commits are not in the order of the walk stops at the first one out of order
+            for (ShardReader reader : readers) {
+                for (JsonNode commit = reader.current; commit != null; commit = reader.next()) {
+                    otherCommits.add(commit);
+                }
+            }
+        } finally {
+            for (ShardReader reader : readers) {
+                reader.close();
+            }
+        }
+        if (!otherCommits.isEmpty()) {
+            logger.warn("{} commits of the shards are not part of the history or not in its order, writing them last",
+                otherCommits.size());
+            for (JsonNode commit : otherCommits) {
+                out.commit(commit);
+            }
+        }
+    }
+
+    private static List<String> walk(@NotNull GitService gitService, @NotNull Repository repository,
+                                     @Nullable String start, @Nullable String end) throws Exception {
+        List<String> commits = new ArrayList<>();
+        if (end != null) {
+            for (RevCommit commit : gitService.createRevsWalkBetweenCommits(repository, start, end)) {
+                commits.add(commit.getId().getName());
+            }
+        } else {
+            RevWalk walk = gitService.createAllRevsWalk(repository, start);
+            try {
+                for (RevCommit commit : walk) {
+                    commits.add(commit.getId().getName());
+                }
+            } finally {
+                walk.dispose();
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Read the next commit of the shard that is part of the walk, and keep the ones that are not.
+     */
+    private static void advance(ShardReader reader, Set<String> walkCommits, Map<String, ShardReader> shards,
+                                List<JsonNode> otherCommits) throws IOException {
+        for (JsonNode commit = reader.next(); commit != null; commit = reader.next()) {
+            String sha1 = commit.get("sha1").asText();
+            if (walkCommits.contains(sha1) && !shards.containsKey(sha1)) {
+                shards.put(sha1, reader);
+                return;
+            }
+            otherCommits.add(commit);
+        }
+    }
+
+    /**
+     * Reads the commits of a shard output one at a time: a JSON output is a single object with a commits array,
+     * an NDJSON output has one commit per line.
+     */
+    private class ShardReader implements AutoCloseable {
+        private final JsonParser parser;
+        private boolean inCommits = false;
+        @Nullable
+        private JsonNode current;
+
+        private ShardReader(Path shardOutput) throws IOException {
+            this.parser = mapper.getFactory().createParser(shardOutput.toFile());
+        }
+
+        /**
+         * @return The next commit, which becomes the current one, or null at the end of the output
+         */
+        @Nullable
+        private JsonNode next() throws IOException {
+            current = null;
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                JsonNode commit = null;
+                if (inCommits) {
+                    if (token == JsonToken.END_ARRAY) {
+                        inCommits = false;
+                    } else if (token == JsonToken.START_OBJECT) {
+                        commit = mapper.readTree(parser);
+                    }
+                } else if (token == JsonToken.START_OBJECT && parser.nextToken() == JsonToken.FIELD_NAME) {
+                    if ("commits".equals(parser.getCurrentName()) && parser.nextToken() == JsonToken.START_ARRAY) {
+                        inCommits = true;
+                    } else {
+                        commit = readRemainingFields();
+                    }
+                }
+                if (commit != null && commit.has("sha1")) {
+                    current = commit;
+                    return commit;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Read an object whose start and first field name were already read.
+         */
+        private ObjectNode readRemainingFields() throws IOException {
+            ObjectNode object = mapper.createObjectNode();
+            while (parser.currentToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                object.set(name, mapper.readTree(parser));
+                parser.nextToken();
+            }
+            return object;
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
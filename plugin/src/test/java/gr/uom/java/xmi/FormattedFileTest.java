@@ -0,0 +1,116 @@
+package gr.uom.java.xmi;
+
+import com.intellij.lang.java.JavaLanguage;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The formatted text of every composite element of a file, looked up in the {@link FormattedFile}, is the text
+ * of a {@link FormattingVisitor} that formats the element alone.
+ */
+public class FormattedFileTest extends LightJavaCodeInsightFixtureTestCase {
+    private static final String SAMPLE =
+        "package org.example;\n" +
+            "\n" +
+            "import java.util.*;\n" +
+            "import java.util.function.Function;\n" +
+            "\n" +
+            "/**\n" +
+            " * A sample class.\n" +
+            " */\n" +
+            "@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n" +
+            "public class Sample<T extends Comparable<? super T>> implements Iterable<T> {\n" +
+            "    private final List<T> items = new ArrayList<>();\n" +
+            "    private int[][] grid = {{1, 2}, {3, 4}};\n" +
+            "    private static final String NAME = \"sample\" + 1 + 'c';\n" +
+            "\n" +
+            "    public Sample() { }\n" +
+            "\n" +
+            "    @Override\n" +
+            "    public Iterator<T> iterator() {\n" +
+            "        return new Iterator<T>() {\n" +
+            "            int index = 0; // the next item\n" +
+            "            public boolean hasNext() { return index < items.size(); }\n" +
+            "            public T next() { return items.get(index++); }\n" +
+            "        };\n" +
+            "    }\n" +
+            "\n" +
+            "    public <R> List<R> map(Function<? super T, ? extends R> f) {\n" +
+            "        List<R> result = new ArrayList<>(items.size());\n" +
+            "        items.forEach(item -> result.add(f.apply(item)));\n" +
+            "        items.stream().map(f).filter(Objects::nonNull).forEach(result::add);\n" +
+            "        return result;\n" +
+            "    }\n" +
+            "\n" +
+            "    int compute(int a, int b) throws Exception {\n" +
+            "        int x = a > b ? a - b : (b > 0 ? b * 2 : -b);\n" +
+            "        x += (int) (a / 2.0) << 1;\n" +
+            "        label:\n" +
+            "        for (int i = 0, j = 10; i < j; i++, j--) {\n" +
+            "            if (i % 2 == 0) continue label;\n" +
+            "            else if (i > 5) { break; }\n" +
+            "        }\n" +
+            "        switch (x) {\n" +
+            "            case 1:\n" +
+            "            case 2:\n" +
+            "                x++;\n" +
+            "                break;\n" +
+            "            default:\n" +
+            "                x--;\n" +
+            "        }\n" +
+            "        try (Scanner scanner = new Scanner(\"1 2\")) {\n" +
+            "            while (scanner.hasNextInt()) x += scanner.nextInt();\n" +
+            "        } catch (IllegalStateException | NoSuchElementException e) {\n" +
+            "            throw new Exception(e);\n" +
+            "        } finally {\n" +
+            "            /* nothing */\n" +
+            "        }\n" +
+            "        do { x >>>= 1; } while (x > 100);\n" +
+            "        synchronized (this) { assert x >= 0 : \"negative\"; }\n" +
+            "        Runnable r = () -> { };\n" +
+            "        Object o = grid instanceof Object ? new int[]{1, 2, 3}[0] : null;\n" +
+            "        return x + this.grid[0][1] + Sample.NAME.length();\n" +
+            "    }\n" +
+            "\n" +
+            "    enum Kind { A, B(1) { }, C;\n" +
+            "        Kind() { }\n" +
+            "        Kind(int i) { }\n" +
+            "    }\n" +
+            "\n" +
+            "    @interface Marker { String value() default \"\"; }\n" +
+            "}\n";
+
+    public void testSameTextAsFormattingVisitor() {
+        PsiFile file = PsiFileFactory.getInstance(getProject()).createFileFromText(JavaLanguage.INSTANCE, SAMPLE);
+        List<PsiElement> composites = new ArrayList<>();
+        file.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(@NotNull PsiElement element) {
+                if (element.getFirstChild() != null) {
+                    composites.add(element);
+                }
+                super.visitElement(element);
+            }
+        });
+        assertTrue(composites.size() > 100);
+        FormattedFile formattedFile = new FormattedFile(file);
+        for (PsiElement element : composites) {
+            FormattingVisitor formatter = new FormattingVisitor();
+            element.accept(formatter);
+            assertEquals(element.getText(), formatter.getText(), formattedFile.format(element));
+        }
+    }
+
+    public void testElementOfOtherFile() {
+        PsiFileFactory factory = PsiFileFactory.getInstance(getProject());
+        PsiFile file = factory.createFileFromText(JavaLanguage.INSTANCE, SAMPLE);
+        PsiFile otherFile = factory.createFileFromText(JavaLanguage.INSTANCE, SAMPLE);
+        assertNull(new FormattedFile(file).format(otherFile.getFirstChild()));
+    }
+}
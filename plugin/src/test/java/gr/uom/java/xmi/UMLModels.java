@@ -0,0 +1,30 @@
+package gr.uom.java.xmi;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Models of in-memory source trees, given as pairs of file paths and file contents.
+ */
+public class UMLModels {
+    private UMLModels() {
+    }
+
+    public static UMLModel create(String... pathsAndContents) {
+        Map<String, String> fileContents = new LinkedHashMap<>();
+        Set<String> repositoryDirectories = new LinkedHashSet<>();
+        for (int i = 0; i < pathsAndContents.length; i += 2) {
+            String path = pathsAndContents[i];
+            fileContents.put(path, pathsAndContents[i + 1]);
+            String directory = path;
+            while (directory.contains("/")) {
+                directory = directory.substring(0, directory.lastIndexOf("/"));
+                repositoryDirectories.add(directory);
+            }
+        }
+        return new UMLModelASTReader(fileContents, Collections.emptyMap(), repositoryDirectories, null).getUmlModel();
+    }
+}
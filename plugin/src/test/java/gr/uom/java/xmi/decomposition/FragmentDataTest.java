@@ -0,0 +1,205 @@
+package gr.uom.java.xmi.decomposition;
+
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModels;
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.AbstractCall.StatementCoverageType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The data that the code fragments derive from their contents and keep once computed are the data computed
+ * again from their contents, and are computed again when an expression or variable declaration is added.
+ */
+public class FragmentDataTest extends LightJavaCodeInsightFixtureTestCase {
+    private static final String[] SOURCES = {
+        "src/org/example/Store.java",
+        "package org.example;\n" +
+            "import java.io.*;\n" +
+            "import java.util.*;\n" +
+            "public class Store {\n" +
+            "    private final Map<String, List<Item>> items = new HashMap<>();\n" +
+            "    public Item find(String name, int index) throws IOException {\n" +
+            "        if (name == null || name.isEmpty()) {\n" +
+            "            throw new IllegalArgumentException(\"name\");\n" +
+            "        } else if (!items.containsKey(name)) {\n" +
+            "            return new Item(name, 0);\n" +
+            "        }\n" +
+            "        List<Item> list = items.get(name);\n" +
+            "        for (int i = 0, n = list.size(); i < n && i <= index; i++) {\n" +
+            "            log(list.get(i).toString());\n" +
+            "        }\n" +
+            "        for (Item item : list) {\n" +
+            "            if (item.count() > index) return item;\n" +
+            "        }\n" +
+            "        while (list.remove(null)) {\n" +
+            "            log(\"removed\");\n" +
+            "        }\n" +
+            "        try (Reader reader = new StringReader(name); BufferedReader buffered = new BufferedReader(reader)) {\n" +
+            "            String line = buffered.readLine();\n" +
+            "            Object parsed = (Object) parse(line);\n" +
+            "            switch (line.length()) {\n" +
+            "                case 0: return null;\n" +
+            "                default: log(line);\n" +
+            "            }\n" +
+            "        } catch (IOException | RuntimeException e) {\n" +
+            "            throw e;\n" +
+            "        }\n" +
+            "        synchronized (items) {\n" +
+            "            list.sort(Comparator.comparing(item -> item.name()));\n" +
+            "        }\n" +
+            "        do { index--; } while (index > list.size());\n" +
+            "        return list.isEmpty() ? null : list.get(Math.min(index, list.size() - 1));\n" +
+            "    }\n" +
+            "    private Item parse(String line) { return new Item(line, line.length()); }\n" +
+            "    private void log(String message) { System.out.println(message); }\n" +
+            "}\n",
+        "src/org/example/Item.java",
+        "package org.example;\n" +
+            "public class Item {\n" +
+            "    private final String name;\n" +
+            "    private final int count;\n" +
+            "    public Item(String name, int count) { this.name = name; this.count = count; }\n" +
+            "    public String name() { return name; }\n" +
+            "    public int count() { return count; }\n" +
+            "}\n"
+    };
+
+    public void testSameDataAsComputedAgain() {
+        List<CompositeStatementObject> composites = new ArrayList<>();
+        List<AbstractCodeFragment> fragments = new ArrayList<>();
+        collectFragments(UMLModels.create(SOURCES), composites, fragments);
+        assertTrue(composites.size() > 10);
+        for (CompositeStatementObject composite : composites) {
+            //read twice: the first read computes the data, the second one returns what was kept
+            for (int i = 0; i < 2; i++) {
+                assertSameData(composite);
+            }
+        }
+        int coveringCalls = 0;
+        for (AbstractCodeFragment fragment : fragments) {
+            coveringCalls += assertSameCoveringCalls(fragment);
+        }
+        assertTrue(coveringCalls > 5);
+    }
+
+    public void testDataComputedAgainWhenContentsChange() {
+        List<CompositeStatementObject> composites = new ArrayList<>();
+        collectFragments(UMLModels.create(SOURCES), composites, new ArrayList<>());
+        CompositeStatementObject target = null;
+        CompositeStatementObject source = null;
+        for (CompositeStatementObject composite : composites) {
+            if (target == null && composite.getExpressions().size() == 1 && composite.getVariableDeclarations().isEmpty()) {
+                target = composite;
+            } else if (source == null && !composite.getVariableDeclarations().isEmpty() && !composite.getExpressions().isEmpty()) {
+                source = composite;
+            }
+        }
+        assertNotNull(target);
+        assertNotNull(source);
+        assertSameData(target);
+        String string = target.toString();
+        int variableDeclarations = target.getVariableDeclarations().size();
+
+        target.addExpression(source.getExpressions().get(0));
+        assertSameData(target);
+        assertFalse(string.equals(target.toString()));
+        assertEquals(variableDeclarations + source.getExpressions().get(0).getVariableDeclarations().size(),
+            target.getVariableDeclarations().size());
+
+        VariableDeclaration declaration = source.getVariableDeclarations().get(0);
+        variableDeclarations = target.getVariableDeclarations().size();
+        target.addVariableDeclaration(declaration);
+        assertSameData(target);
+        assertEquals(variableDeclarations + 1, target.getVariableDeclarations().size());
+        assertSame(declaration, target.getVariableDeclarations().get(0));
+    }
+
+    private static void collectFragments(UMLModel model, List<CompositeStatementObject> composites, List<AbstractCodeFragment> fragments) {
+        for (UMLClass umlClass : model.getClassList()) {
+            for (UMLOperation operation : umlClass.getOperations()) {
+                if (operation.getBody() == null) {
+                    continue;
+                }
+                CompositeStatementObject body = operation.getBody().getCompositeStatement();
+                for (CompositeStatementObject composite : body.getInnerNodes()) {
+                    composites.add(composite);
+                    fragments.add(composite);
+                    fragments.addAll(composite.getExpressions());
+                }
+                fragments.addAll(body.getLeaves());
+            }
+        }
+    }
+
+    /**
+     * Compare the data of the composite with the data computed from its expressions, as before they were kept.
+     */
+    private static void assertSameData(CompositeStatementObject composite) {
+        List<String> variables = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        List<VariableDeclaration> expressionDeclarations = new ArrayList<>();
+        Map<String, List<OperationInvocation>> methodInvocationMap = new LinkedHashMap<>();
+        Map<String, List<ObjectCreation>> creationMap = new LinkedHashMap<>();
+        for (AbstractExpression expression : composite.getExpressions()) {
+            variables.addAll(expression.getVariables());
+            types.addAll(expression.getTypes());
+            expressionDeclarations.addAll(expression.getVariableDeclarations());
+            expression.getMethodInvocationMap().forEach((key, value) -> methodInvocationMap.computeIfAbsent(key, k -> new ArrayList<>()).addAll(value));
+            expression.getCreationMap().forEach((key, value) -> creationMap.computeIfAbsent(key, k -> new ArrayList<>()).addAll(value));
+        }
+        String message = composite.toString();
+        assertEquals(message, variables, composite.getVariables());
+        assertEquals(message, types, composite.getTypes());
+        assertEquals(message, methodInvocationMap, composite.getMethodInvocationMap());
+        assertEquals(message, creationMap, composite.getCreationMap());
+        List<VariableDeclaration> declarations = composite.getVariableDeclarations();
+        //the declarations of the statement itself (e.g. an enhanced-for parameter) come before the ones of its expressions
+        assertEquals(message, expressionDeclarations, declarations.subList(declarations.size() - expressionDeclarations.size(), declarations.size()));
+
+        String string = composite.toString();
+        composite.contentsChanged();
+        assertEquals(string, composite.toString());
+        assertEquals(message, declarations, composite.getVariableDeclarations());
+    }
+
+    /**
+     * @return The number of calls covering the fragment.
+     */
+    private static int assertSameCoveringCalls(AbstractCodeFragment fragment) {
+        OperationInvocation invocation = fragment.invocationCoveringEntireFragment();
+        StatementCoverageType invocationCoverage = invocation != null ? invocation.getCoverage() : null;
+        ObjectCreation creation = fragment.creationCoveringEntireFragment();
+        StatementCoverageType creationCoverage = creation != null ? creation.getCoverage() : null;
+        //another fragment sharing the call may set another coverage, which is set back on the next lookup
+        if (invocation != null) {
+            invocation.coverage = StatementCoverageType.NONE;
+        }
+        if (creation != null) {
+            creation.coverage = StatementCoverageType.NONE;
+        }
+        String message = fragment.getString();
+        assertSame(message, invocation, fragment.invocationCoveringEntireFragment());
+        assertSame(message, creation, fragment.creationCoveringEntireFragment());
+        if (invocation != null) {
+            assertEquals(message, invocationCoverage, invocation.getCoverage());
+        }
+        if (creation != null) {
+            assertEquals(message, creationCoverage, creation.getCoverage());
+        }
+        fragment.contentsChanged();
+        assertSame(message, invocation, fragment.invocationCoveringEntireFragment());
+        assertSame(message, creation, fragment.creationCoveringEntireFragment());
+        if (invocation != null) {
+            assertEquals(message, invocationCoverage, invocation.getCoverage());
+        }
+        if (creation != null) {
+            assertEquals(message, creationCoverage, creation.getCoverage());
+        }
+        return (invocation != null ? 1 : 0) + (creation != null ? 1 : 0);
+    }
+}
@@ -0,0 +1,147 @@
+package gr.uom.java.xmi.decomposition;
+
+import org.junit.Assert;
+import org.junit.Test;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ReplacementUtil#performReplacement(String, String, String, String)} gives the same results as its
+ * implementation with regular expressions, kept here as the reference.
+ */
+public class ReplacementUtilTest {
+    private static final String[] SPECIAL_CHARACTERS = {";", ",", ")", "=", "+", "-", ">", "<", ".", "]", " ", "(", "["};
+
+    @Test
+    public void testIdentifierBoundaries() {
+        assertSameReplacement("foo(x);\n", "foo(y);\n", "x", "y");
+        assertSameReplacement("xfoo;\n", "bar;\n", "foo", "bar");
+        assertSameReplacement("foo;\n", "xbar;\n", "foo", "bar");
+        assertSameReplacement("int a=b+c;\n", "int a=d+c;\n", "b", "d");
+        assertSameReplacement("call(a,b,ab)", "call(c,b,cb)", "a", "c");
+        assertSameReplacement("call(a,b)", "call(b,a)", "a", "b");
+        assertSameReplacement("a.b.c", "x.b.c", "a", "x");
+        assertSameReplacement("return value;\n", "return result;\n", "value", "result");
+        assertSameReplacement("value", "result", "value", "result");
+        assertSameReplacement(" value", "result ", "value", "result");
+    }
+
+    @Test
+    public void testOverlappingMatches() {
+        assertSameReplacement("aaa;aa;a;\n", "bb;b;bbb;\n", "a", "b");
+        assertSameReplacement("aa,aa,aa)", "a,a,a)", "aa", "a");
+        assertSameReplacement("f(f(f(x)))", "g(g(g(x)))", "f", "g");
+        assertSameReplacement("x==x", "y==y", "x", "y");
+        assertSameReplacement("((a))", "((b))", "(a", "(b");
+        assertSameReplacement("a a a", "b b", "a", "b");
+    }
+
+    @Test
+    public void testRegexMetacharacters() {
+        assertSameReplacement("a.b(c);\n", "a.b(d);\n", "a.b", "a.b");
+        assertSameReplacement("x[i]=y;\n", "x[j]=y;\n", "x[i]", "x[j]");
+        assertSameReplacement("s.replace(\"$1\",\"\\\\\");\n", "s.replace(\"$2\",\"\\\\\");\n", "\"$1\"", "\"$2\"");
+        assertSameReplacement("p=a*b+c?d:e;\n", "p=a*f+c?d:e;\n", "a*b", "a*f");
+        assertSameReplacement("m.find(^x|y$);\n", "m.find(^z|y$);\n", "^x|y$", "^z|y$");
+        assertSameReplacement("x={a};\n", "x={b};\n", "{a}", "{b}");
+        assertSameReplacement("f(\\Q,\\E);\n", "f(\\E,\\Q);\n", "\\Q", "\\E");
+    }
+
+    @Test
+    public void testRandomInputs() {
+        Random random = new Random(42);
+        String alphabet = "ab.(),;= $\\";
+        for (int i = 0; i < 100_000; i++) {
+            String subString1 = randomString(random, alphabet, 1, 3);
+            String subString2 = randomString(random, alphabet, 1, 3);
+            assertSameReplacement(randomString(random, alphabet, 0, 16), randomString(random, alphabet, 0, 16),
+                subString1, subString2);
+        }
+    }
+
+    private static String randomString(Random random, String alphabet, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static void assertSameReplacement(String completeString1, String completeString2, String subString1, String subString2) {
+        Assert.assertEquals(String.format("performReplacement(\"%s\", \"%s\", \"%s\", \"%s\")", completeString1, completeString2, subString1, subString2),
+            performReplacementWithRegex(completeString1, completeString2, subString1, subString2),
+            ReplacementUtil.performReplacement(completeString1, completeString2, subString1, subString2));
+    }
+
+    private static String performReplacementWithRegex(String completeString1, String completeString2, String subString1, String subString2) {
+        String temp = completeString1;
+        boolean replacementOccurred = false;
+        for (String character : SPECIAL_CHARACTERS) {
+            if (temp.contains(subString1 + character) && completeString2.contains(subString2 + character)) {
+                StringBuilder sb = new StringBuilder();
+                Pattern p1 = Pattern.compile(Pattern.quote(subString1 + character));
+                Matcher m1 = p1.matcher(temp);
+                Pattern p2 = Pattern.compile(Pattern.quote(subString2 + character));
+                Matcher m2 = p2.matcher(completeString2);
+                while (m1.find() && m2.find()) {
+                    int start1 = m1.start();
+                    int start2 = m2.start();
+                    String characterBeforeMatch1 = start1 == 0 ? "" : String.valueOf(temp.charAt(start1 - 1));
+                    String characterBeforeMatch2 = start2 == 0 ? "" : String.valueOf(completeString2.charAt(start2 - 1));
+                    if (compatibleCharacterBeforeMatch(characterBeforeMatch1, characterBeforeMatch2)) {
+                        m1.appendReplacement(sb, Matcher.quoteReplacement(subString2 + character));
+                        replacementOccurred = true;
+                    }
+                }
+                m1.appendTail(sb);
+                temp = sb.toString();
+            }
+        }
+        if (!replacementOccurred && !UMLOperationBodyMapper.containsMethodSignatureOfAnonymousClass(completeString1) && !UMLOperationBodyMapper.containsMethodSignatureOfAnonymousClass(completeString2)) {
+            for (String character : SPECIAL_CHARACTERS) {
+                if (temp.contains(character + subString1) && completeString2.contains(character + subString2)) {
+                    StringBuilder sb = new StringBuilder();
+                    Pattern p1 = Pattern.compile(Pattern.quote(character + subString1));
+                    Matcher m1 = p1.matcher(temp);
+                    Pattern p2 = Pattern.compile(Pattern.quote(character + subString2));
+                    Matcher m2 = p2.matcher(completeString2);
+                    while (m1.find() && m2.find()) {
+                        int end1 = m1.end();
+                        int end2 = m2.end();
+                        String characterAfterMatch1 = end1 == temp.length() ? "" : String.valueOf(temp.charAt(end1));
+                        String characterAfterMatch2 = end2 == completeString2.length() ? "" : String.valueOf(completeString2.charAt(end2));
+                        if (compatibleCharacterAfterMatch(characterAfterMatch1, characterAfterMatch2)) {
+                            m1.appendReplacement(sb, Matcher.quoteReplacement(character + subString2));
+                            replacementOccurred = true;
+                        }
+                    }
+                    m1.appendTail(sb);
+                    temp = sb.toString();
+                }
+            }
+        }
+        return temp;
+    }
+
+    private static boolean compatibleCharacterBeforeMatch(String characterBefore1, String characterBefore2) {
+        if (characterBefore1.equals(characterBefore2))
+            return true;
+        if (characterBefore1.equals(",") && characterBefore2.equals("("))
+            return true;
+        if (characterBefore1.equals("(") && characterBefore2.equals(","))
+            return true;
+        if (characterBefore1.equals(" ") && characterBefore2.equals(""))
+            return true;
+        return characterBefore1.equals("") && characterBefore2.equals(" ");
+    }
+
+    private static boolean compatibleCharacterAfterMatch(String characterAfter1, String characterAfter2) {
+        if (characterAfter1.equals(characterAfter2))
+            return true;
+        if (characterAfter1.equals(",") && characterAfter2.equals(")"))
+            return true;
+        return characterAfter1.equals(")") && characterAfter2.equals(",");
+    }
+}
@@ -0,0 +1,143 @@
+package gr.uom.java.xmi.diff;
+
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLClassMatcher;
+import gr.uom.java.xmi.UMLModels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The candidates of {@link AddedClassIndex} that a matcher accepts are the added classes it accepts when it is
+ * given every added class, in the same order.
+ */
+public class AddedClassIndexTest extends LightJavaCodeInsightFixtureTestCase {
+    private static final UMLClassMatcher[] MATCHERS = {
+        new UMLClassMatcher.Move(), new UMLClassMatcher.RelaxedMove(), new UMLClassMatcher.ExtremelyRelaxedMove(),
+        new UMLClassMatcher.Rename(), new UMLClassMatcher.RelaxedRename(), new UMLClassMatcher.ExtremelyRelaxedRename()
+    };
+    private static final String[] REMOVED = {
+        "src/org/example/a/Account.java",
+        "package org.example.a;\n" +
+            "public class Account {\n" +
+            "    private long balance;\n" +
+            "    public void deposit(long amount) { balance += amount; }\n" +
+            "    public long getBalance() { return balance; }\n" +
+            "}\n",
+        "src/org/example/a/Listener.java",
+        "package org.example.a;\n" +
+            "public interface Listener {\n" +
+            "    void changed(Account account);\n" +
+            "}\n",
+        "src/org/example/a/Box.java",
+        "package org.example.a;\n" +
+            "public class Box<T> {\n" +
+            "    private T value;\n" +
+            "    public T get() { return value; }\n" +
+            "    public void set(T value) { this.value = value; }\n" +
+            "}\n",
+        "src/org/example/a/Helper.java",
+        "package org.example.a;\n" +
+            "public class Helper {\n" +
+            "    private int count;\n" +
+            "    public void run() { count++; }\n" +
+            "    static class Inner {\n" +
+            "        private int count;\n" +
+            "    }\n" +
+            "}\n"
+    };
+    private static final String[] ADDED = {
+        "src/org/example/b/Account.java",
+        "package org.example.b;\n" +
+            "public class Account {\n" +
+            "    private long balance;\n" +
+            "    public void deposit(long amount) { balance += amount; }\n" +
+            "    public long getBalance() { return balance; }\n" +
+            "}\n",
+        "src/org/example/b/Wallet.java",
+        "package org.example.b;\n" +
+            "public class Wallet {\n" +
+            "    private long balance;\n" +
+            "    public void deposit(long amount) { balance += amount; }\n" +
+            "    public long getBalance() { return balance; }\n" +
+            "}\n",
+        "src/org/example/b/Listener.java",
+        "package org.example.b;\n" +
+            "public class Listener {\n" +
+            "    public void changed(Account account) { }\n" +
+            "}\n",
+        "src/org/example/b/AccountListener.java",
+        "package org.example.b;\n" +
+            "public interface AccountListener {\n" +
+            "    void changed(Account account);\n" +
+            "}\n",
+        "src/org/example/b/Holder.java",
+        "package org.example.b;\n" +
+            "public class Holder<T> {\n" +
+            "    private T value;\n" +
+            "    public T get() { return value; }\n" +
+            "    public void set(T value) { this.value = value; }\n" +
+            "}\n",
+        "src/org/example/b/Box.java",
+        "package org.example.b;\n" +
+            "public class Box<T> {\n" +
+            "    private T content;\n" +
+            "    public T get() { return content; }\n" +
+            "}\n",
+        "src/org/example/b/Runner.java",
+        "package org.example.b;\n" +
+            "public class Runner {\n" +
+            "    private int runs;\n" +
+            "    public void run() { runs++; }\n" +
+            "    static class Inner {\n" +
+            "        private int count;\n" +
+            "    }\n" +
+            "}\n"
+    };
+
+    public void testSameCandidatesAsLinearScan() {
+        List<UMLClass> removedClasses = UMLModels.create(REMOVED).getClassList();
+        List<UMLClass> addedClasses = UMLModels.create(ADDED).getClassList();
+        Map<String, String> renamedFileHints = Map.of("src/org/example/a/Helper.java", "src/org/example/b/Runner.java");
+        int matchCount = 0;
+        for (UMLClassMatcher matcher : MATCHERS) {
+            AddedClassIndex index = new AddedClassIndex(addedClasses);
+            for (UMLClass removedClass : removedClasses) {
+                String renamedFile = renamedFileHints.get(removedClass.getSourceFile());
+                List<UMLClass> matches = matches(matcher, removedClass, renamedFile, addedClasses);
+                assertEquals(matcher.getClass().getSimpleName() + " " + removedClass.getName(), matches,
+                    matches(matcher, removedClass, renamedFile, index.candidates(removedClass, renamedFile, matcher.candidates())));
+                matchCount += matches.size();
+            }
+        }
+        assertTrue(matchCount > 0);
+    }
+
+    public void testSameCandidatesAfterRemove() {
+        List<UMLClass> removedClasses = UMLModels.create(REMOVED).getClassList();
+        List<UMLClass> addedClasses = new ArrayList<>(UMLModels.create(ADDED).getClassList());
+        AddedClassIndex index = new AddedClassIndex(addedClasses);
+        for (int i = addedClasses.size() - 1; i >= 0; i -= 2) {
+            index.remove(addedClasses.remove(i));
+        }
+        for (UMLClassMatcher matcher : MATCHERS) {
+            for (UMLClass removedClass : removedClasses) {
+                assertEquals(matcher.getClass().getSimpleName() + " " + removedClass.getName(),
+                    matches(matcher, removedClass, null, addedClasses),
+                    matches(matcher, removedClass, null, index.candidates(removedClass, null, matcher.candidates())));
+            }
+        }
+    }
+
+    private static List<UMLClass> matches(UMLClassMatcher matcher, UMLClass removedClass, String renamedFile,
+                                          List<UMLClass> addedClasses) {
+        List<UMLClass> matches = new ArrayList<>();
+        for (UMLClass addedClass : addedClasses) {
+            if (matcher.match(removedClass, addedClass, renamedFile)) {
+                matches.add(addedClass);
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,202 @@
+package gr.uom.java.xmi.diff;
+
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import gr.uom.java.xmi.UMLAttribute;
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModels;
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.UMLType;
+import gr.uom.java.xmi.decomposition.UMLOperationBodyMapper;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The lookups of {@link ClassDiffIndex} return the same class diffs and mappers as the scans over the common,
+ * moved, inner moved and renamed class diff lists that they replace.
+ */
+public class ClassDiffIndexTest extends LightJavaCodeInsightFixtureTestCase {
+    private static final String[] BEFORE = {
+        "src/org/example/a/Account.java",
+        "package org.example.a;\n" +
+            "public class Account {\n" +
+            "    private long balance;\n" +
+            "    public void deposit(long amount) { balance += amount; }\n" +
+            "    public void deposit(int amount) { balance += amount; }\n" +
+            "    public long getBalance() { return balance; }\n" +
+            "}\n",
+        "src/org/example/a/Ledger.java",
+        "package org.example.a;\n" +
+            "import java.util.List;\n" +
+            "public class Ledger {\n" +
+            "    private List<Account> accounts;\n" +
+            "    public void deposit(Account account, long amount) { account.deposit(amount); }\n" +
+            "    public long getBalance() {\n" +
+            "        long total = 0;\n" +
+            "        for (Account account : accounts) total += account.getBalance();\n" +
+            "        return total;\n" +
+            "    }\n" +
+            "    static class Entry {\n" +
+            "        private Account account;\n" +
+            "        public Account getAccount() { return account; }\n" +
+            "    }\n" +
+            "}\n",
+        "src/org/example/c/Account.java",
+        "package org.example.c;\n" +
+            "public class Account {\n" +
+            "    private long balance;\n" +
+            "    public long getBalance() { return balance; }\n" +
+            "}\n",
+        "src/org/example/a/Helper.java",
+        "package org.example.a;\n" +
+            "public class Helper {\n" +
+            "    public long getBalance(Account account) { return account.getBalance(); }\n" +
+            "}\n"
+    };
+    private static final String[] AFTER = {
+        "src/org/example/a/Account.java",
+        "package org.example.a;\n" +
+            "public class Account {\n" +
+            "    private long balance;\n" +
+            "    public void deposit(long amount) { balance = balance + amount; }\n" +
+            "    public void deposit(int amount) { deposit((long) amount); }\n" +
+            "    public long getBalance() { return balance; }\n" +
+            "}\n",
+        "src/org/example/b/Ledger.java",
+        "package org.example.b;\n" +
+            "import java.util.List;\n" +
+            "import org.example.a.Account;\n" +
+            "public class Ledger {\n" +
+            "    private List<Account> accounts;\n" +
+            "    public void deposit(Account account, long amount) { account.deposit(amount); }\n" +
+            "    public long getBalance() {\n" +
+            "        return accounts.stream().mapToLong(Account::getBalance).sum();\n" +
+            "    }\n" +
+            "    static class Entry {\n" +
+            "        private Account account;\n" +
+            "        public Account getAccount() { return account; }\n" +
+            "    }\n" +
+            "}\n",
+        "src/org/example/c/Account.java",
+        "package org.example.c;\n" +
+            "public class Account {\n" +
+            "    private long balance;\n" +
+            "    public long getBalance() { return balance; }\n" +
+            "}\n",
+        "src/org/example/b/BalanceHelper.java",
+        "package org.example.b;\n" +
+            "import org.example.a.Account;\n" +
+            "public class BalanceHelper {\n" +
+            "    public long getBalance(Account account) { return account.getBalance(); }\n" +
+            "}\n"
+    };
+
+    public void testSameLookupsAsListScans() throws Exception {
+        UMLModel parentModel = UMLModels.create(BEFORE);
+        UMLModel currentModel = UMLModels.create(AFTER);
+        UMLModelDiff modelDiff = new UMLModelDiff(parentModel, currentModel);
+        List<UMLClassDiff> commonClassDiffs = new ArrayList<>();
+        List<UMLClassMoveDiff> classMoveDiffs = new ArrayList<>();
+        List<UMLClassMoveDiff> innerClassMoveDiffs = new ArrayList<>();
+        List<UMLClassRenameDiff> classRenameDiffs = new ArrayList<>();
+        commonClassDiffs.add(new UMLClassDiff(find(parentModel, "org.example.a.Account"), find(currentModel, "org.example.a.Account"), modelDiff));
+        //matches the same types and has mappers for the same operations as the class diff listed before it
+        commonClassDiffs.add(new UMLClassDiff(find(parentModel, "org.example.c.Account"), find(currentModel, "org.example.c.Account"), modelDiff));
+        classMoveDiffs.add(new UMLClassMoveDiff(find(parentModel, "org.example.a.Ledger"), find(currentModel, "org.example.b.Ledger"), modelDiff));
+        innerClassMoveDiffs.add(new UMLClassMoveDiff(find(parentModel, "org.example.a.Ledger.Entry"), find(currentModel, "org.example.b.Ledger.Entry"), modelDiff));
+        //matches both its original and its next class name
+        classRenameDiffs.add(new UMLClassRenameDiff(find(parentModel, "org.example.a.Helper"), find(currentModel, "org.example.b.BalanceHelper"), modelDiff));
+        List<List<? extends UMLClassBaseDiff>> lists = List.of(commonClassDiffs, classMoveDiffs, innerClassMoveDiffs, classRenameDiffs);
+        ClassDiffIndex index = new ClassDiffIndex();
+        for (int list = 0; list < lists.size(); list++) {
+            for (UMLClassBaseDiff classDiff : lists.get(list)) {
+                classDiff.process();
+                index.addClassDiff(classDiff, list);
+            }
+        }
+        //a class diff added again to a later list keeps the position of its first list
+        index.addClassDiff(commonClassDiffs.get(0), 3);
+
+        Set<String> classNames = new LinkedHashSet<>();
+        Set<UMLType> types = new LinkedHashSet<>();
+        List<UMLOperation> operations = new ArrayList<>();
+        for (UMLModel model : List.of(parentModel, currentModel)) {
+            for (UMLClass umlClass : model.getClassList()) {
+                classNames.add(umlClass.getName());
+                for (UMLAttribute attribute : umlClass.getAttributes()) {
+                    types.add(attribute.getType());
+                }
+                for (UMLOperation operation : umlClass.getOperations()) {
+                    types.addAll(operation.getParameterTypeList());
+                    operations.add(operation);
+                }
+            }
+        }
+        classNames.add("org.example.Missing");
+        classNames.add("Account");
+        types.add(UMLType.extractTypeObject("Ledger.Entry"));
+        types.add(UMLType.extractTypeObject("org.example.b.BalanceHelper"));
+        types.add(UMLType.extractTypeObject("Missing"));
+
+        for (String className : classNames) {
+            assertSame(className, getUMLClassDiff(lists, className), index.getUMLClassDiff(className));
+        }
+        for (UMLType type : types) {
+            assertSame(type.toString(), getUMLClassDiff(lists, type), index.getUMLClassDiff(type));
+        }
+        int mapperCount = 0;
+        for (UMLOperation operation2 : operations) {
+            List<UMLOperationBodyMapper> mappers = findMappersWithMatchingSignatures(lists, null, operation2);
+            assertEquals(operation2.toString(), mappers, index.findMappersWithMatchingSignatures(null, operation2));
+            mapperCount += mappers.size();
+            for (UMLOperation operation1 : operations) {
+                assertEquals(operation1 + " " + operation2, findMappersWithMatchingSignatures(lists, operation1, operation2),
+                    index.findMappersWithMatchingSignatures(operation1, operation2));
+            }
+        }
+        assertTrue(mapperCount > 0);
+    }
+
+    private static UMLClass find(UMLModel model, String className) {
+        UMLClass umlClass = model.findClass(className);
+        assertNotNull(className, umlClass);
+        return umlClass;
+    }
+
+    private static UMLClassBaseDiff getUMLClassDiff(List<List<? extends UMLClassBaseDiff>> lists, String className) {
+        for (List<? extends UMLClassBaseDiff> list : lists) {
+            for (UMLClassBaseDiff classDiff : list) {
+                if (classDiff.matches(className))
+                    return classDiff;
+            }
+        }
+        return null;
+    }
+
+    private static UMLClassBaseDiff getUMLClassDiff(List<List<? extends UMLClassBaseDiff>> lists, UMLType type) {
+        for (List<? extends UMLClassBaseDiff> list : lists) {
+            for (UMLClassBaseDiff classDiff : list) {
+                if (classDiff.matches(type))
+                    return classDiff;
+            }
+        }
+        return null;
+    }
+
+    private static List<UMLOperationBodyMapper> findMappersWithMatchingSignatures(List<List<? extends UMLClassBaseDiff>> lists,
+                                                                                UMLOperation operation1, UMLOperation operation2) {
+        List<UMLOperationBodyMapper> mappers = new ArrayList<>();
+        for (List<? extends UMLClassBaseDiff> list : lists) {
+            for (UMLClassBaseDiff classDiff : list) {
+                UMLOperationBodyMapper mapper = operation1 == null ? classDiff.findMapperWithMatchingSignature2(operation2) :
+                    classDiff.findMapperWithMatchingSignatures(operation1, operation2);
+                if (mapper != null) {
+                    mappers.add(mapper);
+                }
+            }
+        }
+        return mappers;
+    }
+}
@@ -0,0 +1,193 @@
+package gr.uom.java.xmi.diff;
+
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModels;
+import org.refactoringminer.api.Refactoring;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The class diffs of a commit processed on a pool give the same refactorings, in the same order, as the class
+ * diffs processed one at a time.
+ */
+public class ConcurrentClassDiffTest extends LightJavaCodeInsightFixtureTestCase {
+    private static final String[] BEFORE = {
+        "src/org/example/Shape.java",
+        "package org.example;\n" +
+            "public interface Shape {\n" +
+            "    double area();\n" +
+            "    String describe();\n" +
+            "}\n",
+        "src/org/example/Circle.java",
+        "package org.example;\n" +
+            "public class Circle implements Shape {\n" +
+            "    private double radius;\n" +
+            "    public double area() {\n" +
+            "        return Math.PI * radius * radius;\n" +
+            "    }\n" +
+            "    public String describe() {\n" +
+            "        StringBuilder sb = new StringBuilder();\n" +
+            "        sb.append(\"circle \");\n" +
+            "        sb.append(radius);\n" +
+            "        sb.append(\" area \");\n" +
+            "        sb.append(area());\n" +
+            "        return sb.toString();\n" +
+            "    }\n" +
+            "}\n",
+        "src/org/example/Square.java",
+        "package org.example;\n" +
+            "public class Square implements Shape {\n" +
+            "    private double side;\n" +
+            "    public double area() {\n" +
+            "        return side * side;\n" +
+            "    }\n" +
+            "    public String describe() {\n" +
+            "        return \"square \" + side;\n" +
+            "    }\n" +
+            "}\n",
+        "src/org/example/Canvas.java",
+        "package org.example;\n" +
+            "import java.util.ArrayList;\n" +
+            "import java.util.List;\n" +
+            "public class Canvas {\n" +
+            "    private final List<Shape> shapes = new ArrayList<>();\n" +
+            "    private final Printer printer = new Printer();\n" +
+            "    public void add(Shape shape) {\n" +
+            "        shapes.add(shape);\n" +
+            "    }\n" +
+            "    public double totalArea() {\n" +
+            "        double total = 0;\n" +
+            "        for (Shape shape : shapes) {\n" +
+            "            total += shape.area();\n" +
+            "        }\n" +
+            "        return total;\n" +
+            "    }\n" +
+            "    public void print() {\n" +
+            "        for (Shape shape : shapes) {\n" +
+            "            printer.print(shape.describe());\n" +
+            "        }\n" +
+            "        printer.print(\"total \" + totalArea());\n" +
+            "    }\n" +
+            "}\n",
+        "src/org/example/Printer.java",
+        "package org.example;\n" +
+            "public class Printer {\n" +
+            "    private int lines;\n" +
+            "    public void print(String text) {\n" +
+            "        lines++;\n" +
+            "        System.out.println(lines + \": \" + text);\n" +
+            "    }\n" +
+            "    private String format(String text) {\n" +
+            "        return text.trim();\n" +
+            "    }\n" +
+            "    public void printAll(String[] texts) {\n" +
+            "        for (String text : texts) {\n" +
+            "            print(format(text));\n" +
+            "        }\n" +
+            "    }\n" +
+            "}\n"
+    };
+    private static final String[] AFTER = {
+        "src/org/example/Shape.java",
+        "package org.example;\n" +
+            "public interface Shape {\n" +
+            "    double computeArea();\n" +
+            "    String describe();\n" +
+            "}\n",
+        "src/org/example/Circle.java",
+        "package org.example;\n" +
+            "public class Circle implements Shape {\n" +
+            "    private double radius;\n" +
+            "    public double computeArea() {\n" +
+            "        return Math.PI * radius * radius;\n" +
+            "    }\n" +
+            "    public String describe() {\n" +
+            "        StringBuilder builder = new StringBuilder();\n" +
+            "        appendName(builder);\n" +
+            "        builder.append(\" area \");\n" +
+            "        builder.append(computeArea());\n" +
+            "        return builder.toString();\n" +
+            "    }\n" +
+            "    private void appendName(StringBuilder builder) {\n" +
+            "        builder.append(\"circle \");\n" +
+            "        builder.append(radius);\n" +
+            "    }\n" +
+            "}\n",
+        "src/org/example/Square.java",
+        "package org.example;\n" +
+            "public class Square implements Shape {\n" +
+            "    private double side;\n" +
+            "    public double computeArea() {\n" +
+            "        return side * side;\n" +
+            "    }\n" +
+            "    public String describe() {\n" +
+            "        return \"square \" + side;\n" +
+            "    }\n" +
+            "}\n",
+        "src/org/example/Canvas.java",
+        "package org.example;\n" +
+            "import java.util.ArrayList;\n" +
+            "import java.util.List;\n" +
+            "public class Canvas {\n" +
+            "    private final List<Shape> shapes = new ArrayList<>();\n" +
+            "    private final Printer output = new Printer();\n" +
+            "    public void add(Shape shape) {\n" +
+            "        shapes.add(shape);\n" +
+            "    }\n" +
+            "    public double totalArea() {\n" +
+            "        double sum = 0;\n" +
+            "        for (Shape shape : shapes) {\n" +
+            "            sum += shape.computeArea();\n" +
+            "        }\n" +
+            "        return sum;\n" +
+            "    }\n" +
+            "    public void print() {\n" +
+            "        for (Shape shape : shapes) {\n" +
+            "            output.print(shape.describe());\n" +
+            "        }\n" +
+            "        output.print(\"total \" + totalArea());\n" +
+            "    }\n" +
+            "}\n",
+        "src/org/example/Printer.java",
+        "package org.example;\n" +
+            "public class Printer {\n" +
+            "    private int lines;\n" +
+            "    public void print(String text) {\n" +
+            "        lines++;\n" +
+            "        System.out.println(lines + \": \" + text);\n" +
+            "    }\n" +
+            "    public void printAll(String[] texts) {\n" +
+            "        for (String text : texts) {\n" +
+            "            print(text.trim());\n" +
+            "        }\n" +
+            "    }\n" +
+            "}\n"
+    };
+
+    public void testSameRefactoringsWithPool() throws Exception {
+        List<String> sequential = refactorings(null);
+        assertFalse(sequential.isEmpty());
+        for (int parallelism : new int[]{2, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                assertEquals(sequential, refactorings(pool));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static List<String> refactorings(ForkJoinPool classDiffPool) throws Exception {
+        //the models are changed by the diff, so every run diffs new ones
+        UMLModel parentModel = UMLModels.create(BEFORE);
+        UMLModel currentModel = UMLModels.create(AFTER);
+        List<String> refactorings = new ArrayList<>();
+        for (Refactoring refactoring : parentModel.diff(currentModel, Collections.emptyMap(), classDiffPool).getRefactorings()) {
+            refactorings.add(refactoring.toString());
+        }
+        return refactorings;
+    }
+}
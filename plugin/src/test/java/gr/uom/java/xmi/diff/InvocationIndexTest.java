@@ -0,0 +1,128 @@
+package gr.uom.java.xmi.diff;
+
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLModel;
+import gr.uom.java.xmi.UMLModels;
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.OperationInvocation;
+import gr.uom.java.xmi.decomposition.UMLOperationBodyMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The mappers that {@link InvocationIndex} leaves out for an operation are the ones without an invocation
+ * matching the operation, found by scanning all the invocations of the mapper.
+ */
+public class InvocationIndexTest extends LightJavaCodeInsightFixtureTestCase {
+    private static final String[] BEFORE = {
+        "src/org/example/Report.java",
+        "package org.example;\n" +
+            "import java.util.List;\n" +
+            "public class Report {\n" +
+            "    private final StringBuilder sb = new StringBuilder();\n" +
+            "    public String render(List<String> lines, String title) {\n" +
+            "        sb.append(title.toUpperCase());\n" +
+            "        sb.append('\\n');\n" +
+            "        for (String line : lines) {\n" +
+            "            sb.append(\"- \");\n" +
+            "            sb.append(line.trim());\n" +
+            "            sb.append('\\n');\n" +
+            "        }\n" +
+            "        return sb.toString();\n" +
+            "    }\n" +
+            "    public void clear() {\n" +
+            "        reset(0);\n" +
+            "    }\n" +
+            "    private void reset(int length) {\n" +
+            "        sb.setLength(length);\n" +
+            "    }\n" +
+            "    public int size() {\n" +
+            "        return sb.length();\n" +
+            "    }\n" +
+            "    public int size(boolean trimmed) {\n" +
+            "        return trimmed ? sb.toString().trim().length() : size();\n" +
+            "    }\n" +
+            "}\n"
+    };
+    private static final String[] AFTER = {
+        "src/org/example/Report.java",
+        "package org.example;\n" +
+            "import java.util.List;\n" +
+            "public class Report {\n" +
+            "    private final StringBuilder sb = new StringBuilder();\n" +
+            "    public String render(List<String> lines, String title) {\n" +
+            "        sb.append(title.toUpperCase());\n" +
+            "        sb.append('\\n');\n" +
+            "        for (String line : lines) {\n" +
+            "            appendLine(line);\n" +
+            "        }\n" +
+            "        return sb.toString();\n" +
+            "    }\n" +
+            "    private void appendLine(String line) {\n" +
+            "        sb.append(\"- \");\n" +
+            "        sb.append(line.trim());\n" +
+            "        sb.append('\\n');\n" +
+            "    }\n" +
+            "    public void clear() {\n" +
+            "        sb.setLength(0);\n" +
+            "    }\n" +
+            "    public int size() {\n" +
+            "        return sb.length();\n" +
+            "    }\n" +
+            "    public int size(boolean trimmed) {\n" +
+            "        return trimmed ? sb.toString().trim().length() : size();\n" +
+            "    }\n" +
+            "}\n"
+    };
+
+    public void testSameMappersAsInvocationScan() throws Exception {
+        UMLModel parentModel = UMLModels.create(BEFORE);
+        UMLModel currentModel = UMLModels.create(AFTER);
+        UMLModelDiff modelDiff = new UMLModelDiff(parentModel, currentModel);
+        UMLClass originalClass = parentModel.findClass("org.example.Report");
+        UMLClass nextClass = currentModel.findClass("org.example.Report");
+        UMLClassDiff classDiff = new UMLClassDiff(originalClass, nextClass, modelDiff);
+        classDiff.process();
+        assertFalse(classDiff.getOperationBodyMapperList().isEmpty());
+        List<UMLOperation> operations = new ArrayList<>(originalClass.getOperations());
+        operations.addAll(nextClass.getOperations());
+
+        //the invocations read by the detection of inlined operations
+        int matches = assertSameMappers(classDiff, operations, mapper -> mapper.getOperation1(),
+            mapper -> InlineOperationDetection.getInvocationsInTargetOperationBeforeInline(mapper, classDiff), modelDiff);
+        //the invocations read by the detection of extracted operations
+        matches += assertSameMappers(classDiff, operations, mapper -> mapper.getOperation2(),
+            ExtractOperationDetection::getInvocationsInSourceOperationAfterExtraction, modelDiff);
+        assertTrue(matches > 0);
+    }
+
+    private static int assertSameMappers(UMLClassDiff classDiff, List<UMLOperation> operations,
+                                         Function<UMLOperationBodyMapper, UMLOperation> callerOperation,
+                                         Function<UMLOperationBodyMapper, List<OperationInvocation>> invocationsOfMapper,
+                                         UMLModelDiff modelDiff) {
+        List<UMLOperationBodyMapper> mappers = classDiff.getOperationBodyMapperList();
+        InvocationIndex index = new InvocationIndex(mappers, invocationsOfMapper);
+        int matches = 0;
+        for (UMLOperationBodyMapper mapper : mappers) {
+            List<OperationInvocation> invocations = invocationsOfMapper.apply(mapper);
+            assertEquals(invocations.toString(), index.getInvocations(mapper).toString());
+            for (UMLOperation operation : operations) {
+                boolean invokesName = false;
+                boolean invokesOperation = false;
+                for (OperationInvocation invocation : invocations) {
+                    invokesName |= invocation.getMethodName().equals(operation.getName());
+                    invokesOperation |= invocation.matchesOperation(operation, callerOperation.apply(mapper), modelDiff);
+                }
+                String message = mapper.getOperation1() + " " + operation;
+                assertEquals(message, invokesName, index.mayInvoke(mapper, operation));
+                if (invokesOperation) {
+                    assertTrue(message, index.mayInvoke(mapper, operation));
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,58 @@
+package org.jetbrains.research.refactoringminer;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+
+public class BatchMinerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRepositoriesWithTheSameName() throws Exception {
+        Path manifest = folder.getRoot().toPath().resolve("manifest.csv");
+        Files.writeString(manifest, "repo,branch,start,end,output\n" +
+            "forks/a/foo,master,,,\n" +
+            "forks/b/foo,master,,,\n" +
+            "forks/a/foo,develop,,,\n" +
+            "forks/a/bar,master,,,\n", StandardCharsets.UTF_8);
+        Path summary = folder.getRoot().toPath().resolve("results/summary.json");
+        List<Path> outputs = new BatchMiner(2, 0, 0, false).outputs(BatchMiner.readManifest(manifest), summary);
+        Path results = summary.toAbsolutePath().getParent();
+        Assert.assertEquals(List.of(results.resolve("foo-0.json"), results.resolve("foo-1.json"),
+            results.resolve("foo-2.json"), results.resolve("bar.json")), outputs);
+        Assert.assertEquals(outputs.size(), new HashSet<>(outputs).size());
+    }
+
+    @Test
+    public void testRepositoryNamedAfterTheSummary() {
+        Path summary = folder.getRoot().toPath().resolve("summary.ndjson");
+        List<BatchMiner.Entry> entries = List.of(new BatchMiner.Entry("repositories/summary", null, null, null, null));
+        try {
+            new BatchMiner(1, 0, 0, true).outputs(entries, summary);
+            Assert.fail("The output of the repository is the summary");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testSameOutput() throws Exception {
+        Path summary = folder.getRoot().toPath().resolve("summary.json");
+        String output = folder.getRoot().toPath().resolve("out.json").toString();
+        List<BatchMiner.Entry> entries = List.of(
+            new BatchMiner.Entry("repositories/foo", null, null, null, output),
+            new BatchMiner.Entry("repositories/bar", null, null, null, output));
+        try {
+            new BatchMiner(1, 0, 0, false).mine(entries, summary);
+            Assert.fail("The repositories have the same output");
+        } catch (IllegalArgumentException expected) {
+        }
+        Assert.assertFalse(Files.exists(summary));
+    }
+}
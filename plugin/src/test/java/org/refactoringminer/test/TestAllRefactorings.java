@@ -18,4 +18,12 @@ public class TestAllRefactorings extends LightJavaCodeInsightFixtureTestCase {
         RefactoringPopulator.feedRefactoringsInstances(refactoringsToTest, Systems.FSE.getValue(), test);
         test.assertExpectations(10474, 36, 383);
     }
+
+    public void testAllRefactoringsWithConcurrentClassDiffs() throws Exception {
+        GitHistoryRefactoringMinerImpl detector = new GitHistoryRefactoringMinerImpl();
+        detector.setClassDiffParallelism(4);
+        TestBuilder test = new TestBuilder(detector, dataDirectory, refactoringsToTest, "src/test/resources/" + dataFile);
+        RefactoringPopulator.feedRefactoringsInstances(refactoringsToTest, Systems.FSE.getValue(), test);
+        test.assertExpectations(10474, 36, 383);
+    }
 }
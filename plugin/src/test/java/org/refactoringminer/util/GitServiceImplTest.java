@@ -0,0 +1,160 @@
+package org.refactoringminer.util;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.patch.FileHeader;
+import org.eclipse.jgit.patch.HunkHeader;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.refactoringminer.api.Churn;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The file tree diff and churn of a commit, computed from the cached change-set, are the same as when they were
+ * computed from a full walk of the trees with rename detection over all the files.
+ */
+public class GitServiceImplTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameFileTreeDiffAndChurnAsFullWalk() throws Exception {
+        File directory = folder.newFolder("repository");
+        try (Git git = Git.init().setDirectory(directory).call()) {
+            Path root = directory.toPath();
+            write(root, "src/a/Foo.java", javaClass("a", "Foo", 30));
+            write(root, "src/a/Bar.java", javaClass("a", "Bar", 10));
+            write(root, "src/b/Baz.java", javaClass("b", "Baz", 10));
+            write(root, "lib/Unchanged.java", javaClass("lib", "Unchanged", 10));
+            write(root, "docs/readme.txt", "read me\nfirst\n");
+            write(root, "res/config.xml", "<config>\n</config>\n");
+            commit(git, "initial");
+
+            Files.delete(root.resolve("src/a/Foo.java"));
+            write(root, "src/c/Foo.java", javaClass("c", "Foo", 30));
+            write(root, "src/a/Bar.java", javaClass("a", "Bar", 12));
+            Files.delete(root.resolve("src/b/Baz.java"));
+            write(root, "src/b/Qux.java", javaClass("b", "Qux", 3));
+            Files.delete(root.resolve("docs/readme.txt"));
+            write(root, "docs/README.md", "read me\nfirst\n");
+            write(root, "res/config.xml", "<config>\n<debug/>\n</config>\n");
+            RevCommit commit = commit(git, "changes");
+
+            Repository repository = git.getRepository();
+            GitServiceImpl gitService = new GitServiceImpl();
+            List<String> expectedBefore = new ArrayList<>();
+            List<String> expectedCurrent = new ArrayList<>();
+            Map<String, String> expectedRenames = new LinkedHashMap<>();
+            fileTreeDiffWithFullWalk(repository, commit, expectedBefore, expectedCurrent, expectedRenames);
+            Churn expectedChurn = churnWithFullWalk(repository, commit);
+            Assert.assertEquals(Map.of("src/a/Foo.java", "src/c/Foo.java"), expectedRenames);
+
+            //the first calls walk the trees, the next ones read the cached change-set
+            for (int i = 0; i < 2; i++) {
+                List<String> javaFilesBefore = new ArrayList<>();
+                List<String> javaFilesCurrent = new ArrayList<>();
+                Map<String, String> renamedFilesHint = new LinkedHashMap<>();
+                gitService.fileTreeDiff(repository, commit, javaFilesBefore, javaFilesCurrent, renamedFilesHint);
+                Assert.assertEquals(expectedBefore, javaFilesBefore);
+                Assert.assertEquals(expectedCurrent, javaFilesCurrent);
+                Assert.assertEquals(expectedRenames, renamedFilesHint);
+                Churn churn = gitService.churn(repository, commit);
+                Assert.assertEquals(expectedChurn.getLinesAdded(), churn.getLinesAdded());
+                Assert.assertEquals(expectedChurn.getLinesRemoved(), churn.getLinesRemoved());
+            }
+        }
+    }
+
+    private static String javaClass(String packageName, String className, int methods) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageName).append(";\n");
+        sb.append("public class ").append(className).append(" {\n");
+        for (int i = 0; i < methods; i++) {
+            sb.append("    public int method").append(i).append("() {\n");
+            sb.append("        return ").append(i).append(";\n");
+            sb.append("    }\n");
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void write(Path root, String path, String content) throws IOException {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static RevCommit commit(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().addFilepattern(".").setUpdate(true).call();
+        return git.commit().setMessage(message).setAuthor("author", "author@example.com").setCommitter("author", "author@example.com").call();
+    }
+
+    private static void fileTreeDiffWithFullWalk(Repository repository, RevCommit currentCommit, List<String> javaFilesBefore,
+                                                 List<String> javaFilesCurrent, Map<String, String> renamedFilesHint) throws Exception {
+        try (TreeWalk tw = new TreeWalk(repository)) {
+            tw.setRecursive(true);
+            tw.addTree(currentCommit.getParent(0).getTree());
+            tw.addTree(currentCommit.getTree());
+            RenameDetector rd = new RenameDetector(repository);
+            rd.setRenameScore(80);
+            rd.addAll(DiffEntry.scan(tw));
+            for (DiffEntry diff : rd.compute(tw.getObjectReader(), null)) {
+                ChangeType changeType = diff.getChangeType();
+                String oldPath = diff.getOldPath();
+                String newPath = diff.getNewPath();
+                if (changeType != ChangeType.ADD && oldPath.endsWith(".java")) {
+                    javaFilesBefore.add(oldPath);
+                }
+                if (changeType != ChangeType.DELETE && newPath.endsWith(".java")) {
+                    javaFilesCurrent.add(newPath);
+                }
+                if (changeType == ChangeType.RENAME && diff.getScore() >= rd.getRenameScore() &&
+                    oldPath.endsWith(".java") && newPath.endsWith(".java")) {
+                    renamedFilesHint.put(oldPath, newPath);
+                }
+            }
+        }
+    }
+
+    private static Churn churnWithFullWalk(Repository repository, RevCommit currentCommit) throws Exception {
+        try (TreeWalk tw = new TreeWalk(repository);
+             DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            tw.setRecursive(true);
+            tw.addTree(currentCommit.getParent(0).getTree());
+            tw.addTree(currentCommit.getTree());
+            diffFormatter.setRepository(repository);
+            diffFormatter.setContext(0);
+            int addedLines = 0;
+            int deletedLines = 0;
+            for (DiffEntry entry : DiffEntry.scan(tw)) {
+                FileHeader header = diffFormatter.toFileHeader(entry);
+                for (HunkHeader hunkHeader : header.getHunks()) {
+                    for (Edit edit : hunkHeader.toEditList()) {
+                        addedLines += edit.getLengthB();
+                        deletedLines += edit.getLengthA();
+                    }
+                }
+            }
+            return new Churn(addedLines, deletedLines);
+        }
+    }
+}
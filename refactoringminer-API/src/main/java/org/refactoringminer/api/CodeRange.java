@@ -1,5 +1,8 @@
 package org.refactoringminer.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+
 public interface CodeRange {
     String getFilePath();
 
@@ -14,4 +17,20 @@ public interface CodeRange {
     String getDescription();
 
     String getCodeElement();
+
+    /**
+     * Write the range as a JSON object with the properties of its getters. Implementations with more properties,
+     * such as the type of the code element, override it to write the same properties as {@link Object#toString()}.
+     */
+    default void writeJSON(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("filePath", getFilePath());
+        generator.writeNumberField("startLine", getStartLine());
+        generator.writeNumberField("endLine", getEndLine());
+        generator.writeNumberField("startColumn", getStartColumn());
+        generator.writeNumberField("endColumn", getEndColumn());
+        generator.writeStringField("description", getDescription());
+        generator.writeStringField("codeElement", getCodeElement());
+        generator.writeEndObject();
+    }
 }
@@ -0,0 +1,65 @@
+package org.refactoringminer.api;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Time spent in the phases of the analysis of a commit, and counts of the work done in them.
+ * Phases may be part of other phases, e.g. the creation of body mappers is part of the model diff.
+ */
+public class CommitMetrics {
+
+    private final Map<String, Long> phaseDurations;
+    private final Map<String, Long> counters;
+
+    public CommitMetrics(Map<String, Long> phaseDurations, Map<String, Long> counters) {
+        this.phaseDurations = Collections.unmodifiableMap(new LinkedHashMap<>(phaseDurations));
+        this.counters = Collections.unmodifiableMap(new LinkedHashMap<>(counters));
+    }
+
+    /**
+     * @return The duration of each phase in nanoseconds.
+     */
+    public Map<String, Long> getPhaseDurations() {
+        return phaseDurations;
+    }
+
+    public long getPhaseDuration(String phase) {
+        return phaseDurations.getOrDefault(phase, 0L);
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public long getCounter(String counter) {
+        return counters.getOrDefault(counter, 0L);
+    }
+
+    /**
+     * @return A single line JSON object with the commit id, the phase durations in nanoseconds and the counters.
+     */
+    public String toJSON(String commitId) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"commit\": \"");
+        JsonStringEncoder.getInstance().quoteAsString(commitId, sb);
+        sb.append("\", \"phaseNanos\": ");
+        appendJSON(sb, phaseDurations);
+        sb.append(", \"counters\": ");
+        appendJSON(sb, counters);
+        sb.append("}");
+        return sb.toString();
+    }
+
+    private static void appendJSON(StringBuilder sb, Map<String, Long> values) {
+        sb.append("{");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            sb.append(separator).append("\"").append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ", ";
+        }
+        sb.append("}");
+    }
+}
@@ -1,7 +1,9 @@
 package org.refactoringminer.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Set;
 
@@ -33,6 +35,27 @@ public interface Refactoring extends Serializable, CodeRangeProvider {
         return sb.toString();
     }
 
+    /**
+     * Write the refactoring as a JSON object with the same properties as {@link #toJSON()}, without building
+     * the intermediate strings.
+     */
+    default void writeJSON(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", getName());
+        generator.writeStringField("description", toString().replace('\t', ' '));
+        generator.writeArrayFieldStart("leftSideLocations");
+        for (CodeRange range : leftSide()) {
+            range.writeJSON(generator);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("rightSideLocations");
+        for (CodeRange range : rightSide()) {
+            range.writeJSON(generator);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
     String getName();
 
     String toString();
@@ -27,6 +27,24 @@ public abstract class RefactoringHandler {
      */
     public void handle(String commitId, List<Refactoring> refactorings) {}
 
+    /**
+     * This method is called after {@link #handle} when the collection of metrics is enabled in the miner.
+     * You may override this method to inspect where the analysis of a commit spent its time.
+     *
+     * @param commitId The sha of the analyzed commit.
+     * @param metrics  Phase durations and counters of the analysis of the commit.
+     */
+    public void handleMetrics(String commitId, CommitMetrics metrics) {}
+
+    /**
+     * This method is called before {@link #handle} when the time budget of the analysis of the commit was exhausted,
+     * so that some optional phases were skipped and the detected refactorings may be incomplete.
+     *
+     * @param commitId      The sha of the analyzed commit.
+     * @param skippedPhases The phases of the analysis that were skipped.
+     */
+    public void handlePartialResult(String commitId, List<String> skippedPhases) {}
+
     /**
      * This method is called whenever an exception is thrown during the analysis of the given commit.
      * You should override this method to do your custom logic in the case of exceptions (e.g. skip or rethrow).
@@ -0,0 +1,87 @@
+package gr.uom.java.xmi;
+
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The formatted text of a whole file, computed in one pass, with the position of the formatted text of every
+ * composite element in it. The formatted text of an element only depends on the leaves in its text range,
+ * so it is looked up by that range and elements with the same range share it.
+ */
+public class FormattedFile extends FormattingVisitor {
+    @NotNull
+    private final PsiFile file;
+    private String text;
+    //text range of the element in the file -> range of its formatted text, both packed as start << 32 | end
+    private final Map<Long, Long> formattedRanges = new HashMap<>();
+    //formatted start of the composite elements being visited, -1 until their first leaf is added
+    private int[] starts = new int[64];
+    private int depth = 0;
+    private int firstUnstarted = 0;
+
+    public FormattedFile(@NotNull PsiFile file) {
+        this.file = file;
+    }
+
+    /**
+     * @return The formatted text of the given composite element, or null if it is not part of this file.
+     */
+    @Nullable
+    public String format(@NotNull PsiElement element) {
+        if (element.getContainingFile() != file) {
+            return null;
+        }
+        if (text == null) {
+            file.accept(this);
+            text = getText();
+            starts = null;
+        }
+        Long formattedRange = formattedRanges.get(pack(element.getTextRange()));
+        if (formattedRange == null) {
+            return null;
+        }
+        return text.substring((int) (formattedRange >>> 32), (int) (long) formattedRange);
+    }
+
+    @Override
+    protected void compositeStarted(@NotNull PsiElement element) {
+        if (depth == starts.length) {
+            starts = Arrays.copyOf(starts, 2 * depth);
+        }
+        starts[depth++] = -1;
+    }
+
+    @Override
+    protected void leafStarted() {
+        //the elements without leaves so far are the innermost ones, as the outer ones contain the previous leaves
+        Arrays.fill(starts, firstUnstarted, depth, length());
+        firstUnstarted = depth;
+    }
+
+    @Override
+    protected void elementFinished(PsiElement element) {
+        if (element.getFirstChild() == null) {
+            return;
+        }
+        int start = starts[--depth];
+        int end = length();
+        if (firstUnstarted > depth) {
+            firstUnstarted = depth;
+        }
+        formattedRanges.put(pack(element.getTextRange()), start == -1 ? pack(end, end) : pack(start, end));
+    }
+
+    private static long pack(TextRange range) {
+        return pack(range.getStartOffset(), range.getEndOffset());
+    }
+
+    private static long pack(int start, int end) {
+        return (long) start << 32 | end;
+    }
+}
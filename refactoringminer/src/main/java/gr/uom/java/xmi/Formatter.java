@@ -1,14 +1,35 @@
 package gr.uom.java.xmi;
 
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 
 public class Formatter {
+    private static final ThreadLocal<FormattedFile> currentFile = new ThreadLocal<>();
+
+    /**
+     * Serve the formatting of the elements of the given file from one formatting pass over the file,
+     * until {@link #endFile()} is called. The pass is done on the first formatting of an element of the file.
+     */
+    public static void beginFile(PsiFile file) {
+        currentFile.set(new FormattedFile(file));
+    }
+
+    public static void endFile() {
+        currentFile.remove();
+    }
 
     public static String format(PsiElement element) {
         if (element.getFirstChild() == null) {
             // Optimize for leaves
             return element.getText();
         }
+        FormattedFile formattedFile = currentFile.get();
+        if (formattedFile != null) {
+            String text = formattedFile.format(element);
+            if (text != null) {
+                return text;
+            }
+        }
         FormattingVisitor formatter = new FormattingVisitor();
         element.accept(formatter);
         return formatter.getText();
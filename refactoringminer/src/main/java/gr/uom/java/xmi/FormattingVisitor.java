@@ -45,6 +45,7 @@ public class FormattingVisitor extends PsiRecursiveElementWalkingVisitor {
                     if (needSpaceBefore(element) && previousNeedSpaceAfter) {
                         sb.append(' ');
                     }
+                    leafStarted();
                     sb.append(element.getText());
                     if (needEndLineAfter(element)) {
                         sb.append('\n');
@@ -53,10 +54,27 @@ public class FormattingVisitor extends PsiRecursiveElementWalkingVisitor {
                 }
             }
         } else {
+            compositeStarted(element);
             super.visitElement(element);
         }
     }
 
+    /**
+     * Called before the children of a composite element are visited.
+     */
+    protected void compositeStarted(@NotNull PsiElement element) {
+    }
+
+    /**
+     * Called before the text of a leaf is added, at the position of its text.
+     */
+    protected void leafStarted() {
+    }
+
+    protected int length() {
+        return sb.length();
+    }
+
     private boolean needEndLineAfter(@NotNull PsiElement element) {
         return PsiUtil.isJavaToken(element, endLineAfter);
     }
@@ -9,8 +9,8 @@ public class LeafType extends UMLType {
     private volatile int hashCode = 0;
 
     public LeafType(String type) {
-        this.classType = type;
-        this.nonQualifiedClassType = simpleNameOf(type);
+        this.classType = Utils.intern(type);
+        this.nonQualifiedClassType = Utils.intern(simpleNameOf(type));
     }
 
     private static String simpleNameOf(String name) {
@@ -22,7 +22,7 @@ public class LocationInfo {
 
     public LocationInfo(@NotNull PsiFile file, @NotNull String filePath, @NotNull PsiElement node,
                         @NotNull CodeElementType codeElementType) {
-        this.filePath = filePath;
+        this.filePath = Utils.intern(filePath);
         this.codeElementType = codeElementType;
 
         TextRange range = node.getTextRange();
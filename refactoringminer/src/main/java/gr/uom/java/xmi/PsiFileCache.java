@@ -0,0 +1,56 @@
+package gr.uom.java.xmi;
+
+import com.intellij.psi.PsiFile;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of parsed files, keyed by an identifier of the file contents (e.g. a git blob id).
+ * When consecutive commits are analyzed, the version of a file in the child commit is usually the version
+ * in the parent of the next commit, so it is parsed only once.
+ * <p>
+ * Only the PSI trees are shared. The UML model built from them is created anew for every model,
+ * because model diffing mutates the code fragments (e.g. argumentization of statements).
+ */
+public class PsiFileCache {
+    private int maxSize;
+    private final Map<String, PsiFile> files;
+
+    public PsiFileCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.files = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PsiFile> eldest) {
+                return size() > PsiFileCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized PsiFile get(String key) {
+        return files.get(key);
+    }
+
+    public synchronized void put(String key, PsiFile file) {
+        if (maxSize > 0) {
+            files.put(key, file);
+        }
+    }
+
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        Iterator<String> keys = files.keySet().iterator();
+        while (files.size() > maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    public synchronized void clear() {
+        files.clear();
+    }
+}
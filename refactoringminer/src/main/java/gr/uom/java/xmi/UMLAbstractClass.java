@@ -21,7 +21,7 @@ public abstract class UMLAbstractClass {
     protected LocationInfo locationInfo;
     protected String packageName;
     protected String name;
-    private Map<String, VariableDeclaration> fieldDeclarationMap;
+    private volatile Map<String, VariableDeclaration> fieldDeclarationMap;
 
     public UMLAbstractClass() {
         this.operations = new ArrayList<>();
@@ -56,10 +56,12 @@ public abstract class UMLAbstractClass {
 
     public Map<String, VariableDeclaration> getFieldDeclarationMap() {
         if (this.fieldDeclarationMap == null) {
-            fieldDeclarationMap = new LinkedHashMap<>();
+            //published once complete, as the class may be read by the threads processing other class diffs
+            Map<String, VariableDeclaration> fieldDeclarationMap = new LinkedHashMap<>();
             for (UMLAttribute attribute : attributes) {
                 fieldDeclarationMap.put(attribute.getName(), attribute.getVariableDeclaration());
             }
+            this.fieldDeclarationMap = fieldDeclarationMap;
         }
         return fieldDeclarationMap;
     }
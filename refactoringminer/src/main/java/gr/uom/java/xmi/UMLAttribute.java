@@ -26,7 +26,7 @@ public class UMLAttribute implements Comparable<UMLAttribute>, Serializable, Loc
 
     public UMLAttribute(String name, UMLType type, LocationInfo locationInfo) {
         this.locationInfo = locationInfo;
-        this.name = name;
+        this.name = Utils.intern(name);
         this.type = type;
         this.anonymousClassList = new ArrayList<>();
         this.comments = new ArrayList<>();
@@ -3,7 +3,36 @@ package gr.uom.java.xmi;
 public interface UMLClassMatcher {
     boolean match(UMLClass removedClass, UMLClass addedClass, String renamedFile);
 
+    /**
+     * @return The necessary condition of {@link #match} that is used to look up the candidate added classes
+     * of a removed class. Added classes that do not fulfill it are never passed to {@code match}.
+     */
+    default Candidates candidates() {
+        return Candidates.SAME_KIND;
+    }
+
+    enum Candidates {
+        /**
+         * Added classes with the same name and kind.
+         */
+        SAME_NAME_AND_KIND,
+        /**
+         * Added classes with the same kind, the same number of attributes and operations and the same attribute names,
+         * as well as the classes declared in the renamed file.
+         */
+        SAME_MEMBERS_OR_RENAMED_FILE,
+        /**
+         * Added classes with the same kind.
+         */
+        SAME_KIND
+    }
+
     class Move implements UMLClassMatcher {
+        @Override
+        public Candidates candidates() {
+            return Candidates.SAME_NAME_AND_KIND;
+        }
+
         public boolean match(UMLClass removedClass, UMLClass addedClass, String renamedFile) {
             return removedClass.hasSameNameAndKind(addedClass)
                 && (removedClass.hasSameAttributesAndOperations(addedClass) || addedClass.getSourceFile().equals(renamedFile));
@@ -11,6 +40,11 @@ public interface UMLClassMatcher {
     }
 
     class RelaxedMove implements UMLClassMatcher {
+        @Override
+        public Candidates candidates() {
+            return Candidates.SAME_NAME_AND_KIND;
+        }
+
         public boolean match(UMLClass removedClass, UMLClass addedClass, String renamedFile) {
             return removedClass.hasSameNameAndKind(addedClass)
                 && (removedClass.hasCommonAttributesAndOperations(addedClass) || addedClass.getSourceFile().equals(renamedFile));
@@ -18,6 +52,11 @@ public interface UMLClassMatcher {
     }
 
     class ExtremelyRelaxedMove implements UMLClassMatcher {
+        @Override
+        public Candidates candidates() {
+            return Candidates.SAME_NAME_AND_KIND;
+        }
+
         public boolean match(UMLClass removedClass, UMLClass addedClass, String renamedFile) {
             return removedClass.hasSameNameAndKind(addedClass)
                 && (removedClass.hasAttributesAndOperationsWithCommonNames(addedClass) || addedClass.getSourceFile().equals(renamedFile));
@@ -25,6 +64,11 @@ public interface UMLClassMatcher {
     }
 
     class Rename implements UMLClassMatcher {
+        @Override
+        public Candidates candidates() {
+            return Candidates.SAME_MEMBERS_OR_RENAMED_FILE;
+        }
+
         public boolean match(UMLClass removedClass, UMLClass addedClass, String renamedFile) {
             return removedClass.hasSameKind(addedClass)
                 && (removedClass.hasSameAttributesAndOperations(addedClass) || addedClass.getSourceFile().equals(renamedFile));
@@ -30,6 +30,14 @@ public class UMLGeneralization implements Comparable<UMLGeneralization> {
         return false;
     }
 
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + child.hashCode();
+        result = prime * result + parent.hashCode();
+        return result;
+    }
+
     public int compareTo(UMLGeneralization generalization) {
         return this.toString().compareTo(generalization.toString());
     }
@@ -5,33 +5,90 @@ import gr.uom.java.xmi.diff.UMLModelDiff;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 public class UMLModel {
     private final Set<String> repositoryDirectories;
     private final List<UMLClass> classList;
     private final List<UMLGeneralization> generalizationList;
     private final List<UMLRealization> realizationList;
+    /* Indexes over the lists above. Every bucket keeps the classes in list order,
+       so that a lookup returns the same class as a linear scan of the list. */
+    private final Map<UMLClass, UMLClass> classIndex;
+    private final Map<String, UMLClass> classByQualifiedName;
+    private final Map<String, List<UMLClass>> classesByQualifiedNameSuffix;
+    private final Map<String, List<UMLClass>> classesBySourceFile;
+    private final Set<UMLGeneralization> generalizationIndex;
+    private final Set<UMLRealization> realizationIndex;
 
     public UMLModel(Set<String> repositoryDirectories) {
         this.repositoryDirectories = repositoryDirectories;
         classList = new ArrayList<>();
         generalizationList = new ArrayList<>();
         realizationList = new ArrayList<>();
+        classIndex = new HashMap<>();
+        classByQualifiedName = new HashMap<>();
+        classesByQualifiedNameSuffix = new HashMap<>();
+        classesBySourceFile = new HashMap<>();
+        generalizationIndex = new HashSet<>();
+        realizationIndex = new HashSet<>();
     }
 
     public void addClass(UMLClass umlClass) {
         classList.add(umlClass);
+        classIndex.putIfAbsent(umlClass, umlClass);
+        String qualifiedName = umlClass.getName();
+        classByQualifiedName.putIfAbsent(qualifiedName, umlClass);
+        int dotIndex = qualifiedName.indexOf('.');
+        while (dotIndex != -1) {
+            classesByQualifiedNameSuffix.computeIfAbsent(qualifiedName.substring(dotIndex + 1), k -> new ArrayList<>()).add(umlClass);
+            dotIndex = qualifiedName.indexOf('.', dotIndex + 1);
+        }
+        classesBySourceFile.computeIfAbsent(umlClass.getSourceFile(), k -> new ArrayList<>()).add(umlClass);
     }
 
     public void addGeneralization(UMLGeneralization umlGeneralization) {
         generalizationList.add(umlGeneralization);
+        generalizationIndex.add(umlGeneralization);
     }
 
     public void addRealization(UMLRealization umlRealization) {
         realizationList.add(umlRealization);
+        realizationIndex.add(umlRealization);
+    }
+
+    public boolean containsClass(UMLClass umlClass) {
+        return classIndex.containsKey(umlClass);
+    }
+
+    public boolean containsGeneralization(UMLGeneralization umlGeneralization) {
+        return generalizationIndex.contains(umlGeneralization);
+    }
+
+    public boolean containsRealization(UMLRealization umlRealization) {
+        return realizationIndex.contains(umlRealization);
+    }
+
+    /**
+     * @return The first class whose qualified name is {@code className} or, if there is none,
+     * the first class whose qualified name ends with {@code "." + className}.
+     */
+    public UMLClass findClass(String className) {
+        UMLClass umlClass = classByQualifiedName.get(className);
+        if (umlClass != null) {
+            return umlClass;
+        }
+        List<UMLClass> classes = classesByQualifiedNameSuffix.get(className);
+        return classes != null ? classes.get(0) : null;
+    }
+
+    public List<UMLClass> getClassesInSourceFile(String sourceFile) {
+        return classesBySourceFile.getOrDefault(sourceFile, Collections.emptyList());
     }
 
     public List<UMLClass> getClassList() {
@@ -95,53 +152,58 @@ public class UMLModel {
     }
 
     public UMLModelDiff diff(UMLModel umlModel, Map<String, String> renamedFileHints) throws RefactoringMinerTimedOutException {
+        return this.diff(umlModel, renamedFileHints, null);
+    }
+
+    /**
+     * @param classDiffPool The pool processing the diffs of the common classes concurrently, or null to process them
+     *                      one at a time; the model diff is the same in both cases.
+     */
+    public UMLModelDiff diff(UMLModel umlModel, Map<String, String> renamedFileHints,
+                             ForkJoinPool classDiffPool) throws RefactoringMinerTimedOutException {
         UMLModelDiff modelDiff = new UMLModelDiff(this, umlModel);
+        modelDiff.setClassDiffPool(classDiffPool);
         for (UMLClass umlClass : classList) {
-            if (!umlModel.classList.contains(umlClass))
+            if (!umlModel.containsClass(umlClass))
                 modelDiff.reportRemovedClass(umlClass);
         }
         for (UMLClass umlClass : umlModel.classList) {
-            if (!this.classList.contains(umlClass))
+            if (!this.containsClass(umlClass))
                 modelDiff.reportAddedClass(umlClass);
         }
         modelDiff.checkForMovedClasses(renamedFileHints, umlModel.repositoryDirectories, new UMLClassMatcher.Move());
         modelDiff.checkForRenamedClasses(renamedFileHints, new UMLClassMatcher.Rename());
         for (UMLGeneralization umlGeneralization : generalizationList) {
-            if (!umlModel.generalizationList.contains(umlGeneralization))
+            if (!umlModel.containsGeneralization(umlGeneralization))
                 modelDiff.reportRemovedGeneralization(umlGeneralization);
         }
         for (UMLGeneralization umlGeneralization : umlModel.generalizationList) {
-            if (!this.generalizationList.contains(umlGeneralization))
+            if (!this.containsGeneralization(umlGeneralization))
                 modelDiff.reportAddedGeneralization(umlGeneralization);
         }
         modelDiff.checkForGeneralizationChanges();
         for (UMLRealization umlRealization : realizationList) {
-            if (!umlModel.realizationList.contains(umlRealization))
+            if (!umlModel.containsRealization(umlRealization))
                 modelDiff.reportRemovedRealization(umlRealization);
         }
         for (UMLRealization umlRealization : umlModel.realizationList) {
-            if (!this.realizationList.contains(umlRealization))
+            if (!this.containsRealization(umlRealization))
                 modelDiff.reportAddedRealization(umlRealization);
         }
         modelDiff.checkForRealizationChanges();
+        List<UMLClassDiff> commonClassDiffs = new ArrayList<>();
         for (UMLClass umlClass : classList) {
-            if (umlModel.classList.contains(umlClass)) {
-                UMLClassDiff classDiff = new UMLClassDiff(umlClass, umlModel.getClass(umlClass), modelDiff);
-                classDiff.process();
-                if (!classDiff.isEmpty())
-                    modelDiff.addUMLClassDiff(classDiff);
+            if (umlModel.containsClass(umlClass)) {
+                commonClassDiffs.add(new UMLClassDiff(umlClass, umlModel.getClass(umlClass), modelDiff));
             }
         }
+        modelDiff.processCommonClassDiffs(commonClassDiffs);
         modelDiff.checkForMovedClasses(renamedFileHints, umlModel.repositoryDirectories, new UMLClassMatcher.RelaxedMove());
         modelDiff.checkForRenamedClasses(renamedFileHints, new UMLClassMatcher.RelaxedRename());
         return modelDiff;
     }
 
     public UMLClass getClass(UMLClass umlClassFromOtherModel) {
-        for (UMLClass umlClass : classList) {
-            if (umlClass.equals(umlClassFromOtherModel))
-                return umlClass;
-        }
-        return null;
+        return classIndex.get(umlClassFromOtherModel);
     }
 }
@@ -12,6 +12,8 @@ import gr.uom.java.xmi.decomposition.VariableDeclaration;
 import org.apache.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.refactoringminer.util.MetricsRecorder;
+import org.refactoringminer.util.MetricsRecorder.Counter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -21,17 +23,50 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 public class UMLModelASTReader {
     private static final Logger LOG = Logger.getLogger(UMLModelASTReader.class);
 
     private final UMLModel umlModel;
+    private final Map<String, String> javaFileKeys;
+    @Nullable
+    private final PsiFileCache psiFileCache;
 
     public UMLModelASTReader(Map<String, String> javaFileContents, Set<String> repositoryDirectories) {
+        this(javaFileContents, Collections.emptyMap(), repositoryDirectories, null);
+    }
+
+    /**
+     * @param javaFileKeys Identifiers of the file contents (e.g. git blob ids) by file path, used as keys in the cache.
+     *                     Files without a key are always parsed.
+     * @param psiFileCache Cache of already parsed files, or null to parse every file.
+     */
+    public UMLModelASTReader(Map<String, String> javaFileContents, Map<String, String> javaFileKeys,
+                             Set<String> repositoryDirectories, @Nullable PsiFileCache psiFileCache) {
+        this(javaFileContents, javaFileKeys, repositoryDirectories, psiFileCache, null);
+    }
+
+    /**
+     * @param javaFileKeys Identifiers of the file contents (e.g. git blob ids) by file path, used as keys in the cache.
+     *                     Files without a key are always parsed.
+     * @param psiFileCache Cache of already parsed files, or null to parse every file.
+     * @param parsingPool  Pool used to parse and process the files concurrently, or null to process them one by one.
+     *                     The resulting model is identical in both cases.
+     */
+    public UMLModelASTReader(Map<String, String> javaFileContents, Map<String, String> javaFileKeys,
+                             Set<String> repositoryDirectories, @Nullable PsiFileCache psiFileCache,
+                             @Nullable ForkJoinPool parsingPool) {
         this.umlModel = new UMLModel(repositoryDirectories);
-        ApplicationManager.getApplication().runReadAction(() ->
-            processJavaFileContents(javaFileContents, PsiFactoryManager.getFactory()));
+        this.javaFileKeys = javaFileKeys;
+        this.psiFileCache = psiFileCache;
+        if (parsingPool != null && javaFileContents.size() > 1) {
+            processJavaFileContents(javaFileContents, repositoryDirectories, parsingPool);
+        } else {
+            ApplicationManager.getApplication().runReadAction(() ->
+                processJavaFileContents(javaFileContents, PsiFactoryManager.getFactory()));
+        }
     }
 
     public UMLModel getUmlModel() {
@@ -40,7 +75,7 @@ public class UMLModelASTReader {
 
     private void processJavaFileContents(Map<String, String> javaFileContents, PsiFileFactory factory) {
         for (Map.Entry<String, String> file : javaFileContents.entrySet()) {
-            PsiFile psiFile = factory.createFileFromText(JavaLanguage.INSTANCE, file.getValue());
+            PsiFile psiFile = parseFile(factory, file.getKey(), file.getValue());
             try {
                 processFile(file.getKey(), psiFile);
             } catch (Exception e) {
@@ -51,24 +86,65 @@ public class UMLModelASTReader {
         }
     }
 
+    /**
+     * Every file is processed into a model of its own by a worker of the pool, under its own read action.
+     * The per-file models are then merged in the iteration order of {@code javaFileContents},
+     * which is the order a sequential reader adds the classes, generalizations and realizations in.
+     */
+    private void processJavaFileContents(Map<String, String> javaFileContents, Set<String> repositoryDirectories,
+                                         ForkJoinPool parsingPool) {
+        List<Map.Entry<String, String>> files = new ArrayList<>(javaFileContents.entrySet());
+        MetricsRecorder recorder = MetricsRecorder.current();
+        List<UMLModel> fileModels = parsingPool.submit(() -> files.parallelStream()
+            .map(file -> MetricsRecorder.callWith(recorder, () ->
+                new UMLModelASTReader(Collections.singletonMap(file.getKey(), file.getValue()),
+                    javaFileKeys, repositoryDirectories, psiFileCache).getUmlModel()))
+            .collect(Collectors.toList())).join();
+        for (UMLModel fileModel : fileModels) {
+            fileModel.getClassList().forEach(umlModel::addClass);
+            fileModel.getGeneralizationList().forEach(umlModel::addGeneralization);
+            fileModel.getRealizationList().forEach(umlModel::addRealization);
+        }
+    }
+
+    private PsiFile parseFile(PsiFileFactory factory, String sourceFilePath, String contents) {
+        String key = javaFileKeys.get(sourceFilePath);
+        if (psiFileCache == null || key == null) {
+            MetricsRecorder.increment(Counter.FILES_PARSED);
+            return factory.createFileFromText(JavaLanguage.INSTANCE, contents);
+        }
+        PsiFile psiFile = psiFileCache.get(key);
+        if (psiFile == null) {
+            MetricsRecorder.increment(Counter.FILES_PARSED);
+            psiFile = factory.createFileFromText(JavaLanguage.INSTANCE, contents);
+            psiFileCache.put(key, psiFile);
+        }
+        return psiFile;
+    }
+
     private void processFile(String sourceFilePath, PsiFile file) {
         if (PsiTreeUtil.hasErrorElements(file)) {
             throw new IllegalArgumentException("PsiFile contains errors");
         }
-        List<UMLComment> comments = extractInternalComments(file, sourceFilePath);
-        String packageName = getPackageName(file);
-        List<String> importedTypes = getImports(file);
-
-        PsiElement[] topLevelTypeDeclarations = file.getChildren();
-        for (PsiElement element : topLevelTypeDeclarations) {
-            if (element instanceof PsiClass) {
-                PsiClass topLevelClass = (PsiClass) element;
-                if (topLevelClass.isEnum()) {
-                    processEnumDeclaration(file, topLevelClass, packageName, sourceFilePath, importedTypes, comments);
-                } else {
-                    processTypeDeclaration(file, topLevelClass, packageName, sourceFilePath, importedTypes, comments);
+        Formatter.beginFile(file);
+        try {
+            List<UMLComment> comments = extractInternalComments(file, sourceFilePath);
+            String packageName = getPackageName(file);
+            List<String> importedTypes = getImports(file);
+
+            PsiElement[] topLevelTypeDeclarations = file.getChildren();
+            for (PsiElement element : topLevelTypeDeclarations) {
+                if (element instanceof PsiClass) {
+                    PsiClass topLevelClass = (PsiClass) element;
+                    if (topLevelClass.isEnum()) {
+                        processEnumDeclaration(file, topLevelClass, packageName, sourceFilePath, importedTypes, comments);
+                    } else {
+                        processTypeDeclaration(file, topLevelClass, packageName, sourceFilePath, importedTypes, comments);
+                    }
                 }
             }
+        } finally {
+            Formatter.endFile();
         }
     }
 
@@ -39,11 +39,11 @@ public class UMLOperation implements Comparable<UMLOperation>, Serializable, Loc
     private boolean declaredInAnonymousClass;
     private OperationBody operationBody;
     private UMLJavadoc javadoc;
-    private Map<String, Set<VariableDeclaration>> variableDeclarationMap;
+    private volatile Map<String, Set<VariableDeclaration>> variableDeclarationMap;
 
     public UMLOperation(String name, LocationInfo locationInfo) {
         this.locationInfo = locationInfo;
-        this.name = name;
+        this.name = Utils.intern(name);
         this.parameters = new ArrayList<>();
         this.anonymousClassList = new ArrayList<>();
         this.typeParameters = new ArrayList<>();
@@ -218,7 +218,8 @@ public class UMLOperation implements Comparable<UMLOperation>, Serializable, Loc
 
     public Map<String, Set<VariableDeclaration>> variableDeclarationMap() {
         if (this.variableDeclarationMap == null) {
-            this.variableDeclarationMap = new LinkedHashMap<>();
+            //published once complete, as the operation may be read by the threads processing other class diffs
+            Map<String, Set<VariableDeclaration>> variableDeclarationMap = new LinkedHashMap<>();
             for (VariableDeclaration declaration : getAllVariableDeclarations()) {
                 if (variableDeclarationMap.containsKey(declaration.getVariableName())) {
                     variableDeclarationMap.get(declaration.getVariableName()).add(declaration);
@@ -228,6 +229,7 @@ public class UMLOperation implements Comparable<UMLOperation>, Serializable, Loc
                     variableDeclarationMap.put(declaration.getVariableName(), variableDeclarations);
                 }
             }
+            this.variableDeclarationMap = variableDeclarationMap;
         }
         return variableDeclarationMap;
     }
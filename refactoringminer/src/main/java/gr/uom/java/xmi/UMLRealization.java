@@ -30,6 +30,14 @@ public class UMLRealization implements Comparable<UMLRealization> {
         return false;
     }
 
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + client.hashCode();
+        result = prime * result + supplier.hashCode();
+        return result;
+    }
+
     public int compareTo(UMLRealization realization) {
         return this.toString().compareTo(realization.toString());
     }
@@ -1,12 +1,43 @@
 package gr.uom.java.xmi;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.BiFunction;
 
 public class Utils {
+    private static final Interner<String> strings = Interners.newWeakInterner();
+
     private Utils() {}
 
+    /**
+     * Share equal strings (identifiers, types, file paths, code fragments) between the models of all files
+     * and versions. The strings are weakly referenced, so they are released together with the models.
+     */
+    public static String intern(String value) {
+        return value == null ? null : strings.intern(value);
+    }
+
+    /**
+     * @return An immutable, compactly stored copy of the given list of interned strings, shared when empty.
+     */
+    public static List<String> compact(List<String> values) {
+        if (values.isEmpty()) {
+            return ImmutableList.of();
+        }
+        String[] array = new String[values.size()];
+        boolean containsNull = false;
+        for (int i = 0; i < array.length; i++) {
+            array[i] = intern(values.get(i));
+            containsNull |= array[i] == null;
+        }
+        return containsNull ? Collections.unmodifiableList(Arrays.asList(array)) : ImmutableList.copyOf(array);
+    }
+
     /**
      * BiFunction for using with {@link java.util.Map#compute}. Add element to List or create new List with that element
      *
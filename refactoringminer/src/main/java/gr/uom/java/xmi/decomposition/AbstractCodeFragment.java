@@ -13,6 +13,9 @@ public abstract class AbstractCodeFragment implements LocationInfoProvider {
     private int depth;
     private int index;
     private String codeFragmentAfterReplacingParametersWithArguments;
+    //the calls covering the entire fragment, looked up for every pair of fragments compared by the mappers
+    private volatile CoveringCall<ObjectCreation> creationCoveringEntireFragment;
+    private volatile CoveringCall<OperationInvocation> invocationCoveringEntireFragment;
 
     public String getArgumentizedString() {
         return codeFragmentAfterReplacingParametersWithArguments != null ? codeFragmentAfterReplacingParametersWithArguments : getString();
@@ -153,7 +156,21 @@ public abstract class AbstractCodeFragment implements LocationInfoProvider {
         this.codeFragmentAfterReplacingParametersWithArguments = getString();
     }
 
+    void clearArgumentization() {
+        this.codeFragmentAfterReplacingParametersWithArguments = null;
+    }
+
     public ObjectCreation creationCoveringEntireFragment() {
+        CoveringCall<ObjectCreation> covering = creationCoveringEntireFragment;
+        if (covering == null) {
+            ObjectCreation creation = findCreationCoveringEntireFragment();
+            covering = new CoveringCall<>(creation);
+            creationCoveringEntireFragment = covering;
+        }
+        return covering.get();
+    }
+
+    private ObjectCreation findCreationCoveringEntireFragment() {
         Map<String, List<ObjectCreation>> creationMap = getCreationMap();
         String statement = getString();
         for (String objectCreation : creationMap.keySet()) {
@@ -197,6 +214,16 @@ public abstract class AbstractCodeFragment implements LocationInfoProvider {
     public abstract List<VariableDeclaration> getVariableDeclarations();
 
     public OperationInvocation invocationCoveringEntireFragment() {
+        CoveringCall<OperationInvocation> covering = invocationCoveringEntireFragment;
+        if (covering == null) {
+            OperationInvocation invocation = findInvocationCoveringEntireFragment();
+            covering = new CoveringCall<>(invocation);
+            invocationCoveringEntireFragment = covering;
+        }
+        return covering.get();
+    }
+
+    private OperationInvocation findInvocationCoveringEntireFragment() {
         Map<String, List<OperationInvocation>> methodInvocationMap = getMethodInvocationMap();
         String statement = getString();
         for (String methodInvocation : methodInvocationMap.keySet()) {
@@ -305,4 +332,34 @@ public abstract class AbstractCodeFragment implements LocationInfoProvider {
     }
 
     public abstract CompositeStatementObject getParent();
+
+    /**
+     * Discard the data derived from the contents of the fragment, when they change.
+     */
+    protected void contentsChanged() {
+        creationCoveringEntireFragment = null;
+        invocationCoveringEntireFragment = null;
+    }
+
+    /**
+     * A call covering the entire fragment, or none, with the coverage found for it. The coverage is set again on
+     * every lookup, as the call may be shared with another fragment (e.g. the expression of a composite statement)
+     * that sets a different coverage.
+     */
+    private static class CoveringCall<T extends AbstractCall> {
+        private final T call;
+        private final StatementCoverageType coverage;
+
+        private CoveringCall(T call) {
+            this.call = call;
+            this.coverage = call != null ? call.coverage : null;
+        }
+
+        private T get() {
+            if (call != null) {
+                call.coverage = coverage;
+            }
+            return call;
+        }
+    }
 }
@@ -5,6 +5,7 @@ import com.intellij.psi.PsiFile;
 import gr.uom.java.xmi.Formatter;
 import gr.uom.java.xmi.LocationInfo;
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.Utils;
 import gr.uom.java.xmi.diff.CodeRange;
 import org.jetbrains.annotations.NotNull;
 import java.util.List;
@@ -40,26 +41,26 @@ public class AbstractExpression extends AbstractCodeFragment {
         this.locationInfo = new LocationInfo(file, filePath, expression, codeElementType);
         Visitor visitor = new Visitor(file, filePath);
         expression.accept(visitor);
-        this.variables = visitor.getVariables();
-        this.types = visitor.getTypes();
+        this.variables = Utils.compact(visitor.getVariables());
+        this.types = Utils.compact(visitor.getTypes());
         this.variableDeclarations = visitor.getVariableDeclarations();
         this.methodInvocationMap = visitor.getMethodInvocationMap();
         this.anonymousClassDeclarations = visitor.getAnonymousClassDeclarations();
-        this.stringLiterals = visitor.getStringLiterals();
-        this.numberLiterals = visitor.getNumberLiterals();
-        this.nullLiterals = visitor.getNullLiterals();
-        this.booleanLiterals = visitor.getBooleanLiterals();
-        this.typeLiterals = visitor.getTypeLiterals();
+        this.stringLiterals = Utils.compact(visitor.getStringLiterals());
+        this.numberLiterals = Utils.compact(visitor.getNumberLiterals());
+        this.nullLiterals = Utils.compact(visitor.getNullLiterals());
+        this.booleanLiterals = Utils.compact(visitor.getBooleanLiterals());
+        this.typeLiterals = Utils.compact(visitor.getTypeLiterals());
         this.creationMap = visitor.getCreationMap();
-        this.infixExpressions = visitor.getInfixExpressions();
-        this.infixOperators = visitor.getInfixOperators();
-        this.arrayAccesses = visitor.getArrayAccesses();
-        this.prefixExpressions = visitor.getPrefixExpressions();
-        this.postfixExpressions = visitor.getPostfixExpressions();
-        this.arguments = visitor.getArguments();
+        this.infixExpressions = Utils.compact(visitor.getInfixExpressions());
+        this.infixOperators = Utils.compact(visitor.getInfixOperators());
+        this.arrayAccesses = Utils.compact(visitor.getArrayAccesses());
+        this.prefixExpressions = Utils.compact(visitor.getPrefixExpressions());
+        this.postfixExpressions = Utils.compact(visitor.getPostfixExpressions());
+        this.arguments = Utils.compact(visitor.getArguments());
         this.ternaryOperatorExpressions = visitor.getTernaryOperatorExpressions();
         this.lambdas = visitor.getLambdas();
-        this.expression = Formatter.format(expression);
+        this.expression = Utils.intern(Formatter.format(expression));
         this.owner = null;
     }
 
@@ -6,6 +6,7 @@ import gr.uom.java.xmi.LocationInfo;
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.diff.CodeRange;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -17,6 +18,14 @@ public class CompositeStatementObject extends AbstractStatement {
     private final List<AbstractExpression> expressionList = new ArrayList<>();
     private final List<VariableDeclaration> variableDeclarations = new ArrayList<>();
     private final LocationInfo locationInfo;
+    //derived from the expressions and variable declarations on first use, as the mappers read them for every pair
+    //of compared fragments, and discarded when an expression or variable declaration is added
+    private volatile String string;
+    private volatile List<String> variables;
+    private volatile List<String> types;
+    private volatile List<VariableDeclaration> allVariableDeclarations;
+    private volatile Map<String, List<OperationInvocation>> methodInvocationMap;
+    private volatile Map<String, List<ObjectCreation>> creationMap;
 
     public CompositeStatementObject(PsiFile file, String filePath, PsiElement statement, int depth, CodeElementType codeElementType) {
         super();
@@ -40,6 +49,7 @@ public class CompositeStatementObject extends AbstractStatement {
         expression.setIndex(this.getIndex());
         expressionList.add(expression);
         expression.setOwner(this);
+        contentsChanged();
     }
 
     public List<AbstractExpression> getExpressions() {
@@ -48,6 +58,18 @@ public class CompositeStatementObject extends AbstractStatement {
 
     public void addVariableDeclaration(VariableDeclaration declaration) {
         this.variableDeclarations.add(declaration);
+        contentsChanged();
+    }
+
+    @Override
+    protected void contentsChanged() {
+        super.contentsChanged();
+        string = null;
+        variables = null;
+        types = null;
+        allVariableDeclarations = null;
+        methodInvocationMap = null;
+        creationMap = null;
     }
 
     public List<CompositeStatementObject> getInnerNodes() {
@@ -64,9 +86,14 @@ public class CompositeStatementObject extends AbstractStatement {
 
     @Override
     public List<String> getVariables() {
-        List<String> variables = new ArrayList<>();
-        for (AbstractExpression expression : expressionList) {
-            variables.addAll(expression.getVariables());
+        List<String> variables = this.variables;
+        if (variables == null) {
+            variables = new ArrayList<>();
+            for (AbstractExpression expression : expressionList) {
+                variables.addAll(expression.getVariables());
+            }
+            variables = Collections.unmodifiableList(variables);
+            this.variables = variables;
         }
         return variables;
     }
@@ -90,6 +117,15 @@ public class CompositeStatementObject extends AbstractStatement {
     }
 
     public String toString() {
+        String string = this.string;
+        if (string == null) {
+            string = buildString();
+            this.string = string;
+        }
+        return string;
+    }
+
+    private String buildString() {
         StringBuilder sb = new StringBuilder();
         sb.append(locationInfo.getCodeElementType().getName());
         if (expressionList.size() > 0) {
@@ -167,37 +203,52 @@ public class CompositeStatementObject extends AbstractStatement {
 
     @Override
     public List<String> getTypes() {
-        List<String> types = new ArrayList<>();
-        for (AbstractExpression expression : expressionList) {
-            types.addAll(expression.getTypes());
+        List<String> types = this.types;
+        if (types == null) {
+            types = new ArrayList<>();
+            for (AbstractExpression expression : expressionList) {
+                types.addAll(expression.getTypes());
+            }
+            types = Collections.unmodifiableList(types);
+            this.types = types;
         }
         return types;
     }
 
     @Override
     public List<VariableDeclaration> getVariableDeclarations() {
-        List<VariableDeclaration> variableDeclarations = new ArrayList<>();
-        //special handling for enhanced-for formal parameter
-        variableDeclarations.addAll(this.variableDeclarations);
-        for (AbstractExpression expression : expressionList) {
-            variableDeclarations.addAll(expression.getVariableDeclarations());
+        List<VariableDeclaration> variableDeclarations = this.allVariableDeclarations;
+        if (variableDeclarations == null) {
+            variableDeclarations = new ArrayList<>();
+            //special handling for enhanced-for formal parameter
+            variableDeclarations.addAll(this.variableDeclarations);
+            for (AbstractExpression expression : expressionList) {
+                variableDeclarations.addAll(expression.getVariableDeclarations());
+            }
+            variableDeclarations = Collections.unmodifiableList(variableDeclarations);
+            this.allVariableDeclarations = variableDeclarations;
         }
         return variableDeclarations;
     }
 
     @Override
     public Map<String, List<OperationInvocation>> getMethodInvocationMap() {
-        Map<String, List<OperationInvocation>> map = new LinkedHashMap<>();
-        for (AbstractExpression expression : expressionList) {
-            Map<String, List<OperationInvocation>> expressionMap = expression.getMethodInvocationMap();
-            for (String key : expressionMap.keySet()) {
-                if (map.containsKey(key)) {
-                    map.get(key).addAll(expressionMap.get(key));
-                } else {
-                    List<OperationInvocation> list = new ArrayList<>(expressionMap.get(key));
-                    map.put(key, list);
+        Map<String, List<OperationInvocation>> map = this.methodInvocationMap;
+        if (map == null) {
+            map = new LinkedHashMap<>();
+            for (AbstractExpression expression : expressionList) {
+                Map<String, List<OperationInvocation>> expressionMap = expression.getMethodInvocationMap();
+                for (String key : expressionMap.keySet()) {
+                    if (map.containsKey(key)) {
+                        map.get(key).addAll(expressionMap.get(key));
+                    } else {
+                        List<OperationInvocation> list = new ArrayList<>(expressionMap.get(key));
+                        map.put(key, list);
+                    }
                 }
             }
+            map = Collections.unmodifiableMap(map);
+            this.methodInvocationMap = map;
         }
         return map;
     }
@@ -330,17 +381,22 @@ public class CompositeStatementObject extends AbstractStatement {
 
     @Override
     public Map<String, List<ObjectCreation>> getCreationMap() {
-        Map<String, List<ObjectCreation>> map = new LinkedHashMap<>();
-        for (AbstractExpression expression : expressionList) {
-            Map<String, List<ObjectCreation>> expressionMap = expression.getCreationMap();
-            for (String key : expressionMap.keySet()) {
-                if (map.containsKey(key)) {
-                    map.get(key).addAll(expressionMap.get(key));
-                } else {
-                    List<ObjectCreation> list = new ArrayList<>(expressionMap.get(key));
-                    map.put(key, list);
+        Map<String, List<ObjectCreation>> map = this.creationMap;
+        if (map == null) {
+            map = new LinkedHashMap<>();
+            for (AbstractExpression expression : expressionList) {
+                Map<String, List<ObjectCreation>> expressionMap = expression.getCreationMap();
+                for (String key : expressionMap.keySet()) {
+                    if (map.containsKey(key)) {
+                        map.get(key).addAll(expressionMap.get(key));
+                    } else {
+                        List<ObjectCreation> list = new ArrayList<>(expressionMap.get(key));
+                        map.put(key, list);
+                    }
                 }
             }
+            map = Collections.unmodifiableMap(map);
+            this.creationMap = map;
         }
         return map;
     }
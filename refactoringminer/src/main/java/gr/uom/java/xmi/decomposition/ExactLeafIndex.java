@@ -0,0 +1,90 @@
+package gr.uom.java.xmi.decomposition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of code fragments by their string and argumentized string, used by the exact matching passes of
+ * {@link UMLOperationBodyMapper#processLeaves} to find the fragments that are textually identical to a given fragment
+ * without comparing it with every fragment of the other side.
+ * <p>
+ * The argumentized strings are compared as in {@code preprocessInput}, where a {@code return} statement is matched
+ * to an expression without the {@code return} keyword. Statements are therefore indexed with and without the keyword.
+ * Candidates are returned in the order of the indexed list, so that ties are resolved as with the pairwise comparison.
+ */
+class ExactLeafIndex {
+    private final Map<AbstractCodeFragment, Integer> positions = new IdentityHashMap<>();
+    private final Map<String, List<AbstractCodeFragment>> byString = new HashMap<>();
+    private final Map<String, List<AbstractCodeFragment>> expressionsByArgumentizedString = new HashMap<>();
+    private final Map<String, List<AbstractCodeFragment>> othersByArgumentizedString = new HashMap<>();
+    private final Map<String, List<AbstractCodeFragment>> othersByArgumentizedReturnExpression = new HashMap<>();
+
+    ExactLeafIndex(List<? extends AbstractCodeFragment> fragments) {
+        for (AbstractCodeFragment fragment : fragments) {
+            if (positions.putIfAbsent(fragment, positions.size()) != null) {
+                continue;
+            }
+            String argumentizedString = fragment.getArgumentizedString();
+            byString.computeIfAbsent(fragment.getString(), k -> new ArrayList<>()).add(fragment);
+            if (fragment instanceof AbstractExpression) {
+                expressionsByArgumentizedString.computeIfAbsent(argumentizedString, k -> new ArrayList<>()).add(fragment);
+            } else {
+                othersByArgumentizedString.computeIfAbsent(argumentizedString, k -> new ArrayList<>()).add(fragment);
+                othersByArgumentizedReturnExpression.computeIfAbsent(returnExpression(fragment), k -> new ArrayList<>()).add(fragment);
+            }
+        }
+    }
+
+    /**
+     * The indexed fragments with the same string or the same preprocessed argumentized string as the given fragment,
+     * optionally at the same depth.
+     */
+    List<AbstractCodeFragment> identicalFragments(AbstractCodeFragment fragment, boolean sameDepth) {
+        boolean expression = fragment instanceof AbstractExpression;
+        List<AbstractCodeFragment> candidates = new ArrayList<>();
+        Set<AbstractCodeFragment> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        addCandidates(candidates, added, byString.get(fragment.getString()));
+        //a return statement is compared with an expression without the return keyword
+        addCandidates(candidates, added, expressionsByArgumentizedString.get(returnExpression(fragment)));
+        addCandidates(candidates, added, (expression ? othersByArgumentizedReturnExpression : othersByArgumentizedString)
+            .get(fragment.getArgumentizedString()));
+        if (sameDepth) {
+            candidates.removeIf(candidate -> candidate.getDepth() != fragment.getDepth());
+        }
+        if (candidates.size() > 1) {
+            candidates.sort(Comparator.comparing(positions::get));
+        }
+        return candidates;
+    }
+
+    private void addCandidates(List<AbstractCodeFragment> candidates, Set<AbstractCodeFragment> added, List<AbstractCodeFragment> bucket) {
+        if (bucket != null) {
+            for (AbstractCodeFragment candidate : bucket) {
+                if (positions.containsKey(candidate) && added.add(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+    }
+
+    void remove(AbstractCodeFragment fragment) {
+        positions.remove(fragment);
+    }
+
+    /**
+     * The argumentized string of a statement as compared with an expression.
+     */
+    private static String returnExpression(AbstractCodeFragment fragment) {
+        String argumentizedString = fragment.getArgumentizedString();
+        if (fragment instanceof StatementObject && argumentizedString.startsWith("return ") && argumentizedString.endsWith(";\n")) {
+            return argumentizedString.substring("return ".length(), argumentizedString.lastIndexOf(";\n"));
+        }
+        return argumentizedString;
+    }
+}
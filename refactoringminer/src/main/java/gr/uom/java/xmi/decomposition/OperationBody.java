@@ -70,6 +70,30 @@ public class OperationBody {
         return new ArrayList<>(compositeStatement.getAllLambdas());
     }
 
+    /**
+     * Discard the arguments put in place of the parameters by the body mappers, in the statements of the body and
+     * of its lambda expressions, as before the body was mapped for the first time.
+     */
+    public void clearArgumentization() {
+        for (CompositeStatementObject innerNode : compositeStatement.getInnerNodes()) {
+            innerNode.clearArgumentization();
+            for (AbstractExpression expression : innerNode.getExpressions()) {
+                expression.clearArgumentization();
+            }
+        }
+        for (StatementObject leaf : compositeStatement.getLeaves()) {
+            leaf.clearArgumentization();
+        }
+        for (LambdaExpressionObject lambda : getAllLambdas()) {
+            if (lambda.getBody() != null) {
+                lambda.getBody().clearArgumentization();
+            }
+            if (lambda.getExpression() != null) {
+                lambda.getExpression().clearArgumentization();
+            }
+        }
+    }
+
     public List<String> getAllVariables() {
         return new ArrayList<>(compositeStatement.getAllVariables());
     }
@@ -195,6 +195,10 @@ public class OperationInvocation extends AbstractCall {
     }
 
     public boolean matchesOperation(UMLOperation operation, UMLOperation callerOperation, UMLModelDiff modelDiff) {
+        //the name is required below, check it before inferring the argument types
+        if (!this.methodName.equals(operation.getName())) {
+            return false;
+        }
         Map<String, Set<VariableDeclaration>> variableDeclarationMap = callerOperation.variableDeclarationMap();
         Map<String, VariableDeclaration> parentFieldDeclarationMap = null;
         Map<String, VariableDeclaration> childFieldDeclarationMap = null;
@@ -5,6 +5,9 @@ import java.util.regex.Pattern;
 
 public class ReplacementUtil {
     private static final String[] SPECIAL_CHARACTERS = {";", ",", ")", "=", "+", "-", ">", "<", ".", "]", " ", "(", "["};
+    private static final char[] SPECIAL_CHARS = {';', ',', ')', '=', '+', '-', '>', '<', '.', ']', ' ', '(', '['};
+    //the character before or after a match at the start or end of a string
+    private static final int NONE = -1;
     private static final String[] SPECIAL_ARGUMENT_CHARACTERS = {";", ",", ")", "=", "+", "-", ">", "<", ".", "]", " "};
     private static final Pattern DOUBLE_QUOTES = Pattern.compile("\"([^\"]*)\"|(\\S+)");
 
@@ -94,80 +97,117 @@ public class ReplacementUtil {
         return temp;
     }
 
+    /**
+     * Replace the occurrences of {@code subString1} in {@code completeString1} with {@code subString2}, where
+     * the occurrences of both substrings in their strings, paired in order, are delimited by the same special
+     * character and are preceded (or followed) by compatible characters.
+     * <p>
+     * This is called for every pair of candidate replacements of a pair of statements, so the occurrences are
+     * searched with {@code indexOf} and the result is built only when a replacement is made.
+     */
     public static String performReplacement(String completeString1, String completeString2, String subString1, String subString2) {
         String temp = completeString1;
         boolean replacementOccurred = false;
-        for (String character : SPECIAL_CHARACTERS) {
-            if (temp.contains(subString1 + character) && completeString2.contains(subString2 + character)) {
-                StringBuilder sb = new StringBuilder();
-                Pattern p1 = Pattern.compile(Pattern.quote(subString1 + character));
-                Matcher m1 = p1.matcher(temp);
-                Pattern p2 = Pattern.compile(Pattern.quote(subString2 + character));
-                Matcher m2 = p2.matcher(completeString2);
-                while (m1.find() && m2.find()) {
-                    int start1 = m1.start();
-                    int start2 = m2.start();
-                    String characterBeforeMatch1 = start1 == 0 ? "" : String.valueOf(temp.charAt(start1 - 1));
-                    String characterBeforeMatch2 = start2 == 0 ? "" : String.valueOf(completeString2.charAt(start2 - 1));
-                    if (compatibleCharacterBeforeMatch(characterBeforeMatch1, characterBeforeMatch2)) {
-                        m1.appendReplacement(sb, Matcher.quoteReplacement(subString2 + character));
-                        replacementOccurred = true;
+        int length1 = subString1.length() + 1;
+        int length2 = subString2.length() + 1;
+        for (char character : SPECIAL_CHARS) {
+            int start1 = indexOfFollowedBy(temp, subString1, character, 0);
+            int start2 = start1 == -1 ? -1 : indexOfFollowedBy(completeString2, subString2, character, 0);
+            StringBuilder sb = null;
+            int appended = 0;
+            while (start1 != -1 && start2 != -1) {
+                int characterBeforeMatch1 = start1 == 0 ? NONE : temp.charAt(start1 - 1);
+                int characterBeforeMatch2 = start2 == 0 ? NONE : completeString2.charAt(start2 - 1);
+                if (compatibleCharacterBeforeMatch(characterBeforeMatch1, characterBeforeMatch2)) {
+                    if (sb == null) {
+                        sb = new StringBuilder(temp.length() + length2);
                     }
+                    sb.append(temp, appended, start1).append(subString2).append(character);
+                    appended = start1 + length1;
+                    replacementOccurred = true;
                 }
-                m1.appendTail(sb);
-                temp = sb.toString();
+                start1 = indexOfFollowedBy(temp, subString1, character, start1 + length1);
+                start2 = start1 == -1 ? -1 : indexOfFollowedBy(completeString2, subString2, character, start2 + length2);
+            }
+            if (sb != null) {
+                temp = sb.append(temp, appended, temp.length()).toString();
             }
         }
         if (!replacementOccurred && !UMLOperationBodyMapper.containsMethodSignatureOfAnonymousClass(completeString1) && !UMLOperationBodyMapper.containsMethodSignatureOfAnonymousClass(completeString2)) {
-            for (String character : SPECIAL_CHARACTERS) {
-                if (temp.contains(character + subString1) && completeString2.contains(character + subString2)) {
-                    StringBuilder sb = new StringBuilder();
-                    Pattern p1 = Pattern.compile(Pattern.quote(character + subString1));
-                    Matcher m1 = p1.matcher(temp);
-                    Pattern p2 = Pattern.compile(Pattern.quote(character + subString2));
-                    Matcher m2 = p2.matcher(completeString2);
-                    while (m1.find() && m2.find()) {
-                        int end1 = m1.end();
-                        int end2 = m2.end();
-                        String characterAfterMatch1 = end1 == temp.length() ? "" : String.valueOf(temp.charAt(end1));
-                        String characterAfterMatch2 = end2 == completeString2.length() ? "" : String.valueOf(completeString2.charAt(end2));
-                        if (compatibleCharacterAfterMatch(characterAfterMatch1, characterAfterMatch2)) {
-                            m1.appendReplacement(sb, Matcher.quoteReplacement(character + subString2));
-                            replacementOccurred = true;
+            for (char character : SPECIAL_CHARS) {
+                int start1 = indexOfPrecededBy(temp, character, subString1, 0);
+                int start2 = start1 == -1 ? -1 : indexOfPrecededBy(completeString2, character, subString2, 0);
+                StringBuilder sb = null;
+                int appended = 0;
+                while (start1 != -1 && start2 != -1) {
+                    int end1 = start1 + length1;
+                    int end2 = start2 + length2;
+                    int characterAfterMatch1 = end1 == temp.length() ? NONE : temp.charAt(end1);
+                    int characterAfterMatch2 = end2 == completeString2.length() ? NONE : completeString2.charAt(end2);
+                    if (compatibleCharacterAfterMatch(characterAfterMatch1, characterAfterMatch2)) {
+                        if (sb == null) {
+                            sb = new StringBuilder(temp.length() + length2);
                         }
+                        sb.append(temp, appended, start1).append(character).append(subString2);
+                        appended = end1;
                     }
-                    m1.appendTail(sb);
-                    temp = sb.toString();
+                    start1 = indexOfPrecededBy(temp, character, subString1, end1);
+                    start2 = start1 == -1 ? -1 : indexOfPrecededBy(completeString2, character, subString2, end2);
+                }
+                if (sb != null) {
+                    temp = sb.append(temp, appended, temp.length()).toString();
                 }
             }
         }
         return temp;
     }
 
-    private static boolean compatibleCharacterBeforeMatch(String characterBefore1, String characterBefore2) {
-        if (characterBefore1 != null && characterBefore2 != null) {
-            if (characterBefore1.equals(characterBefore2))
-                return true;
-            if (characterBefore1.equals(",") && characterBefore2.equals("("))
-                return true;
-            if (characterBefore1.equals("(") && characterBefore2.equals(","))
-                return true;
-            if (characterBefore1.equals(" ") && characterBefore2.equals(""))
-                return true;
-            return characterBefore1.equals("") && characterBefore2.equals(" ");
+    /**
+     * @return The index of the first occurrence of {@code subString + character} in {@code s} from {@code fromIndex}
+     */
+    private static int indexOfFollowedBy(String s, String subString, char character, int fromIndex) {
+        int index = s.indexOf(subString, fromIndex);
+        while (index != -1 && index + subString.length() < s.length()) {
+            if (s.charAt(index + subString.length()) == character) {
+                return index;
+            }
+            index = s.indexOf(subString, index + 1);
         }
-        return false;
+        return -1;
     }
 
-    private static boolean compatibleCharacterAfterMatch(String characterAfter1, String characterAfter2) {
-        if (characterAfter1 != null && characterAfter2 != null) {
-            if (characterAfter1.equals(characterAfter2))
-                return true;
-            if (characterAfter1.equals(",") && characterAfter2.equals(")"))
-                return true;
-            return characterAfter1.equals(")") && characterAfter2.equals(",");
+    /**
+     * @return The index of the first occurrence of {@code character + subString} in {@code s} from {@code fromIndex}
+     */
+    private static int indexOfPrecededBy(String s, char character, String subString, int fromIndex) {
+        int index = s.indexOf(character, fromIndex);
+        while (index != -1) {
+            if (s.startsWith(subString, index + 1)) {
+                return index;
+            }
+            index = s.indexOf(character, index + 1);
         }
-        return false;
+        return -1;
+    }
+
+    private static boolean compatibleCharacterBeforeMatch(int characterBefore1, int characterBefore2) {
+        if (characterBefore1 == characterBefore2)
+            return true;
+        if (characterBefore1 == ',' && characterBefore2 == '(')
+            return true;
+        if (characterBefore1 == '(' && characterBefore2 == ',')
+            return true;
+        if (characterBefore1 == ' ' && characterBefore2 == NONE)
+            return true;
+        return characterBefore1 == NONE && characterBefore2 == ' ';
+    }
+
+    private static boolean compatibleCharacterAfterMatch(int characterAfter1, int characterAfter2) {
+        if (characterAfter1 == characterAfter2)
+            return true;
+        if (characterAfter1 == ',' && characterAfter2 == ')')
+            return true;
+        return characterAfter1 == ')' && characterAfter2 == ',';
     }
 
     public static boolean sameCharsBeforeAfter(String completeString1, String completeString2, String commonSubString) {
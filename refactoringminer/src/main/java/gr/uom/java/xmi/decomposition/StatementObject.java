@@ -5,6 +5,7 @@ import com.intellij.psi.PsiStatement;
 import gr.uom.java.xmi.Formatter;
 import gr.uom.java.xmi.LocationInfo;
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
+import gr.uom.java.xmi.Utils;
 import gr.uom.java.xmi.diff.CodeRange;
 import java.util.ArrayList;
 import java.util.List;
@@ -39,27 +40,27 @@ public class StatementObject extends AbstractStatement {
         this.locationInfo = new LocationInfo(file, filePath, statement, codeElementType);
         Visitor visitor = new Visitor(file, filePath);
         statement.accept(visitor);
-        this.variables = visitor.getVariables();
-        this.types = visitor.getTypes();
+        this.variables = Utils.compact(visitor.getVariables());
+        this.types = Utils.compact(visitor.getTypes());
         this.variableDeclarations = visitor.getVariableDeclarations();
         this.methodInvocationMap = visitor.getMethodInvocationMap();
         this.anonymousClassDeclarations = visitor.getAnonymousClassDeclarations();
-        this.stringLiterals = visitor.getStringLiterals();
-        this.numberLiterals = visitor.getNumberLiterals();
-        this.nullLiterals = visitor.getNullLiterals();
-        this.booleanLiterals = visitor.getBooleanLiterals();
-        this.typeLiterals = visitor.getTypeLiterals();
+        this.stringLiterals = Utils.compact(visitor.getStringLiterals());
+        this.numberLiterals = Utils.compact(visitor.getNumberLiterals());
+        this.nullLiterals = Utils.compact(visitor.getNullLiterals());
+        this.booleanLiterals = Utils.compact(visitor.getBooleanLiterals());
+        this.typeLiterals = Utils.compact(visitor.getTypeLiterals());
         this.creationMap = visitor.getCreationMap();
-        this.infixExpressions = visitor.getInfixExpressions();
-        this.infixOperators = visitor.getInfixOperators();
-        this.arrayAccesses = visitor.getArrayAccesses();
-        this.prefixExpressions = visitor.getPrefixExpressions();
-        this.postfixExpressions = visitor.getPostfixExpressions();
-        this.arguments = visitor.getArguments();
+        this.infixExpressions = Utils.compact(visitor.getInfixExpressions());
+        this.infixOperators = Utils.compact(visitor.getInfixOperators());
+        this.arrayAccesses = Utils.compact(visitor.getArrayAccesses());
+        this.prefixExpressions = Utils.compact(visitor.getPrefixExpressions());
+        this.postfixExpressions = Utils.compact(visitor.getPostfixExpressions());
+        this.arguments = Utils.compact(visitor.getArguments());
         this.ternaryOperatorExpressions = visitor.getTernaryOperatorExpressions();
         this.lambdas = visitor.getLambdas();
         setDepth(depth);
-        this.statement = Formatter.format(statement);
+        this.statement = Utils.intern(Formatter.format(statement));
     }
 
     @Override
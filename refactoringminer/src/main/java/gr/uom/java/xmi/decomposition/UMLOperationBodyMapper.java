@@ -35,6 +35,9 @@ import gr.uom.java.xmi.diff.UMLParameterDiff;
 import org.apache.commons.lang3.tuple.Pair;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
+import org.refactoringminer.util.AnalysisBudget;
+import org.refactoringminer.util.MetricsRecorder;
+import org.refactoringminer.util.MetricsRecorder.Counter;
 import org.refactoringminer.util.PrefixSuffixUtils;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -77,6 +80,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
     private UMLOperation callSiteOperation;
 
     public UMLOperationBodyMapper(UMLOperation operation1, UMLOperation operation2, UMLClassBaseDiff classDiff) throws RefactoringMinerTimedOutException {
+        MetricsRecorder.increment(Counter.BODY_MAPPERS);
         this.classDiff = classDiff;
         if (classDiff != null)
             this.modelDiff = classDiff.getModelDiff();
@@ -1296,21 +1300,19 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
         List<TreeSet<LeafMapping>> postponedMappingSets = new ArrayList<>();
         if (leaves1.size() <= leaves2.size()) {
             //exact string+depth matching - leaf nodes
+            ExactLeafIndex exactLeafIndex = new ExactLeafIndex(leaves2);
             for (ListIterator<? extends AbstractCodeFragment> leafIterator1 = leaves1.listIterator(); leafIterator1.hasNext(); ) {
                 AbstractCodeFragment leaf1 = leafIterator1.next();
                 TreeSet<LeafMapping> mappingSet = new TreeSet<>();
-                for (AbstractCodeFragment leaf2 : leaves2) {
-                    String argumentizedString1 = preprocessInput1(leaf1, leaf2);
-                    String argumentizedString2 = preprocessInput2(leaf1, leaf2);
-                    if ((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2)) && leaf1.getDepth() == leaf2.getDepth()) {
-                        LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap);
-                        mappingSet.add(mapping);
-                    }
+                for (AbstractCodeFragment leaf2 : exactLeafIndex.identicalFragments(leaf1, true)) {
+                    LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap);
+                    mappingSet.add(mapping);
                 }
                 if (!mappingSet.isEmpty()) {
                     LeafMapping minStatementMapping = mappingSet.first();
                     mappings.add(minStatementMapping);
                     leaves2.remove(minStatementMapping.getFragment2());
+                    exactLeafIndex.remove(minStatementMapping.getFragment2());
                     leafIterator1.remove();
                 }
             }
@@ -1319,18 +1321,15 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
             for (ListIterator<? extends AbstractCodeFragment> leafIterator1 = leaves1.listIterator(); leafIterator1.hasNext(); ) {
                 AbstractCodeFragment leaf1 = leafIterator1.next();
                 TreeSet<LeafMapping> mappingSet = new TreeSet<>();
-                for (AbstractCodeFragment leaf2 : leaves2) {
-                    String argumentizedString1 = preprocessInput1(leaf1, leaf2);
-                    String argumentizedString2 = preprocessInput2(leaf1, leaf2);
-                    if ((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2))) {
-                        LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap);
-                        mappingSet.add(mapping);
-                    }
+                for (AbstractCodeFragment leaf2 : exactLeafIndex.identicalFragments(leaf1, false)) {
+                    LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap);
+                    mappingSet.add(mapping);
                 }
                 if (!mappingSet.isEmpty()) {
                     LeafMapping minStatementMapping = mappingSet.first();
                     mappings.add(minStatementMapping);
                     leaves2.remove(minStatementMapping.getFragment2());
+                    exactLeafIndex.remove(minStatementMapping.getFragment2());
                     leafIterator1.remove();
                 }
             }
@@ -1389,21 +1388,19 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
             }
         } else {
             //exact string+depth matching - leaf nodes
+            ExactLeafIndex exactLeafIndex = new ExactLeafIndex(leaves1);
             for (ListIterator<? extends AbstractCodeFragment> leafIterator2 = leaves2.listIterator(); leafIterator2.hasNext(); ) {
                 AbstractCodeFragment leaf2 = leafIterator2.next();
                 TreeSet<LeafMapping> mappingSet = new TreeSet<>();
-                for (AbstractCodeFragment leaf1 : leaves1) {
-                    String argumentizedString1 = preprocessInput1(leaf1, leaf2);
-                    String argumentizedString2 = preprocessInput2(leaf1, leaf2);
-                    if ((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2)) && leaf1.getDepth() == leaf2.getDepth()) {
-                        LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap);
-                        mappingSet.add(mapping);
-                    }
+                for (AbstractCodeFragment leaf1 : exactLeafIndex.identicalFragments(leaf2, true)) {
+                    LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap);
+                    mappingSet.add(mapping);
                 }
                 if (!mappingSet.isEmpty()) {
                     LeafMapping minStatementMapping = mappingSet.first();
                     mappings.add(minStatementMapping);
                     leaves1.remove(minStatementMapping.getFragment1());
+                    exactLeafIndex.remove(minStatementMapping.getFragment1());
                     leafIterator2.remove();
                 }
             }
@@ -1412,18 +1409,15 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
             for (ListIterator<? extends AbstractCodeFragment> leafIterator2 = leaves2.listIterator(); leafIterator2.hasNext(); ) {
                 AbstractCodeFragment leaf2 = leafIterator2.next();
                 TreeSet<LeafMapping> mappingSet = new TreeSet<>();
-                for (AbstractCodeFragment leaf1 : leaves1) {
-                    String argumentizedString1 = preprocessInput1(leaf1, leaf2);
-                    String argumentizedString2 = preprocessInput2(leaf1, leaf2);
-                    if ((leaf1.getString().equals(leaf2.getString()) || argumentizedString1.equals(argumentizedString2))) {
-                        LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap);
-                        mappingSet.add(mapping);
-                    }
+                for (AbstractCodeFragment leaf1 : exactLeafIndex.identicalFragments(leaf2, false)) {
+                    LeafMapping mapping = createLeafMapping(leaf1, leaf2, parameterToArgumentMap);
+                    mappingSet.add(mapping);
                 }
                 if (!mappingSet.isEmpty()) {
                     LeafMapping minStatementMapping = mappingSet.first();
                     mappings.add(minStatementMapping);
                     leaves1.remove(minStatementMapping.getFragment1());
+                    exactLeafIndex.remove(minStatementMapping.getFragment1());
                     leafIterator2.remove();
                 }
             }
@@ -1978,7 +1972,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
         variablesAndMethodInvocations1.addAll(methodInvocations1);
         variablesAndMethodInvocations1.addAll(variables1);
 
-        if (replacementInfo.getRawDistance() > 0) {
+        if (replacementInfo.getRawDistance() > 0 && !AnalysisBudget.skip("findReplacements")) {
             for (String s1 : variablesAndMethodInvocations1) {
                 TreeMap<Double, Replacement> replacementMap = new TreeMap<>();
                 int minDistance = replacementInfo.getRawDistance();
@@ -4550,9 +4544,17 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
     }
 
     private void findReplacements(Set<String> strings1, Set<String> strings2, ReplacementInfo replacementInfo, ReplacementType type) throws RefactoringMinerTimedOutException {
+        MetricsRecorder.increment(Counter.FIND_REPLACEMENTS);
         if (strings1.size() > MAXIMUM_NUMBER_OF_COMPARED_STRINGS || strings2.size() > MAXIMUM_NUMBER_OF_COMPARED_STRINGS) {
             return;
         }
+        if (AnalysisBudget.skip("findReplacements")) {
+            return;
+        }
+        //only replacements reducing the distance are kept
+        if (replacementInfo.getRawDistance() == 0) {
+            return;
+        }
         TreeMap<Double, Set<Replacement>> globalReplacementMap = new TreeMap<>();
         TreeMap<Double, Set<Replacement>> replacementCache = new TreeMap<>();
         if (strings1.size() <= strings2.size()) {
@@ -4570,7 +4572,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
                         continue;
                     }
                     String temp = ReplacementUtil.performReplacement(replacementInfo.getArgumentizedString1(), replacementInfo.getArgumentizedString2(), s1, s2);
-                    int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2());
+                    int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2(), replacementInfo.getRawDistance() - 1);
                     if (distanceRaw >= 0 && distanceRaw < replacementInfo.getRawDistance()) {
                         Replacement replacement = new Replacement(s1, s2, type);
                         double distancenormalized = (double) distanceRaw / (double) Math.max(temp.length(), replacementInfo.getArgumentizedString2().length());
@@ -4617,7 +4619,7 @@ public class UMLOperationBodyMapper implements Comparable<UMLOperationBodyMapper
                         continue;
                     }
                     String temp = ReplacementUtil.performReplacement(replacementInfo.getArgumentizedString1(), replacementInfo.getArgumentizedString2(), s1, s2);
-                    int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2());
+                    int distanceRaw = StringDistance.editDistance(temp, replacementInfo.getArgumentizedString2(), replacementInfo.getRawDistance() - 1);
                     if (distanceRaw >= 0 && distanceRaw < replacementInfo.getRawDistance()) {
                         Replacement replacement = new Replacement(s1, s2, type);
                         double distancenormalized = (double) distanceRaw / (double) Math.max(temp.length(), replacementInfo.getArgumentizedString2().length());
@@ -8,6 +8,7 @@ import gr.uom.java.xmi.LocationInfoProvider;
 import gr.uom.java.xmi.TypeUtils;
 import gr.uom.java.xmi.UMLAnnotation;
 import gr.uom.java.xmi.UMLType;
+import gr.uom.java.xmi.Utils;
 import gr.uom.java.xmi.VariableDeclarationProvider;
 import gr.uom.java.xmi.diff.CodeRange;
 import java.util.Arrays;
@@ -37,7 +38,7 @@ public class VariableDeclaration implements LocationInfoProvider, VariableDeclar
     }
 
     public VariableDeclaration(PsiFile file, String filePath, PsiVariable variable, UMLType type) {
-        this.variableName = variable.getName();
+        this.variableName = Utils.intern(variable.getName());
 
         PsiExpression initializer = variable.getInitializer();
         if (initializer != null) {
@@ -0,0 +1,83 @@
+package gr.uom.java.xmi.diff;
+
+import gr.uom.java.xmi.UMLAttribute;
+import gr.uom.java.xmi.UMLClass;
+import gr.uom.java.xmi.UMLClassMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Buckets of added classes used to find the candidate matches of a removed class without comparing it
+ * with every added class. Candidates are returned in the order of the indexed list, so that the
+ * matching of classes does not depend on the use of the index.
+ */
+class AddedClassIndex {
+    private final Map<UMLClass, Integer> positions = new HashMap<>();
+    private final Map<String, List<UMLClass>> byNameAndKind = new HashMap<>();
+    private final Map<String, List<UMLClass>> byMembers = new HashMap<>();
+    private final Map<String, List<UMLClass>> bySourceFile = new HashMap<>();
+    private final Map<Boolean, List<UMLClass>> byKind = new HashMap<>();
+
+    AddedClassIndex(List<UMLClass> addedClasses) {
+        for (UMLClass addedClass : addedClasses) {
+            if (positions.putIfAbsent(addedClass, positions.size()) != null) {
+                continue;
+            }
+            byNameAndKind.computeIfAbsent(nameAndKindKey(addedClass), k -> new ArrayList<>()).add(addedClass);
+            byMembers.computeIfAbsent(membersKey(addedClass), k -> new ArrayList<>()).add(addedClass);
+            bySourceFile.computeIfAbsent(addedClass.getSourceFile(), k -> new ArrayList<>()).add(addedClass);
+            byKind.computeIfAbsent(addedClass.isInterface(), k -> new ArrayList<>()).add(addedClass);
+        }
+    }
+
+    List<UMLClass> candidates(UMLClass removedClass, String renamedFile, UMLClassMatcher.Candidates candidates) {
+        switch (candidates) {
+            case SAME_NAME_AND_KIND:
+                return byNameAndKind.getOrDefault(nameAndKindKey(removedClass), Collections.emptyList());
+            case SAME_MEMBERS_OR_RENAMED_FILE:
+                List<UMLClass> sameMembers = byMembers.getOrDefault(membersKey(removedClass), Collections.emptyList());
+                List<UMLClass> inRenamedFile = renamedFile != null ?
+                    bySourceFile.getOrDefault(renamedFile, Collections.emptyList()) : Collections.emptyList();
+                if (inRenamedFile.isEmpty()) {
+                    return sameMembers;
+                }
+                Set<UMLClass> union = new TreeSet<>(Comparator.comparing(positions::get));
+                union.addAll(sameMembers);
+                union.addAll(inRenamedFile);
+                return new ArrayList<>(union);
+            default:
+                return byKind.getOrDefault(removedClass.isInterface(), Collections.emptyList());
+        }
+    }
+
+    void remove(UMLClass addedClass) {
+        if (positions.remove(addedClass) != null) {
+            byNameAndKind.get(nameAndKindKey(addedClass)).remove(addedClass);
+            byMembers.get(membersKey(addedClass)).remove(addedClass);
+            bySourceFile.get(addedClass.getSourceFile()).remove(addedClass);
+            byKind.get(addedClass.isInterface()).remove(addedClass);
+        }
+    }
+
+    private static String nameAndKindKey(UMLClass umlClass) {
+        return umlClass.isInterface() + ":" + umlClass.getNonQualifiedName();
+    }
+
+    /**
+     * Necessary condition of {@link UMLClass#hasSameAttributesAndOperations}: the same number of attributes and operations
+     * and the same attribute names. Operation names are left out, as operations may match with equivalent names.
+     */
+    private static String membersKey(UMLClass umlClass) {
+        Set<String> attributeNames = new TreeSet<>();
+        for (UMLAttribute attribute : umlClass.getAttributes()) {
+            attributeNames.add(attribute.getName());
+        }
+        return umlClass.isInterface() + ":" + umlClass.getAttributes().size() + ":" + umlClass.getOperations().size() + ":" + attributeNames;
+    }
+}
@@ -0,0 +1,138 @@
+package gr.uom.java.xmi.diff;
+
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.UMLType;
+import gr.uom.java.xmi.decomposition.UMLOperationBodyMapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buckets of the class diffs of a {@link UMLModelDiff} by class name, and of their body mappers by the name of
+ * the next operation, used to look up a class diff or the mappers with a matching signature without iterating
+ * over all class diffs. The candidates of a bucket are checked with the same conditions as the lookups over the
+ * lists, and are returned in the order of the lists (common, moved, inner moved and renamed class diffs), so that
+ * the detection does not depend on the use of the index.
+ */
+class ClassDiffIndex {
+    //the position of a class diff: the index of its list in the high bits, the order of addition in the low bits
+    private final Map<UMLClassBaseDiff, Long> positions = new IdentityHashMap<>();
+    private final Map<String, List<UMLClassBaseDiff>> byClassName = new HashMap<>();
+    private final Map<String, List<UMLClassBaseDiff>> bySimpleClassName = new HashMap<>();
+    private final Map<String, List<IndexedMapper>> mappersByOperationName = new HashMap<>();
+    private long additions = 0;
+
+    void addClassDiff(UMLClassBaseDiff classDiff, int list) {
+        long position = (long) list << 32 | additions++;
+        Long previousPosition = positions.putIfAbsent(classDiff, position);
+        if (previousPosition != null) {
+            positions.put(classDiff, Math.min(previousPosition, position));
+            return;
+        }
+        for (String className : classNames(classDiff)) {
+            byClassName.computeIfAbsent(className, k -> new ArrayList<>()).add(classDiff);
+            bySimpleClassName.computeIfAbsent(simpleName(className), k -> new ArrayList<>()).add(classDiff);
+        }
+        for (UMLOperationBodyMapper mapper : classDiff.getOperationBodyMapperList()) {
+            addMapper(classDiff, mapper);
+        }
+    }
+
+    /**
+     * Index a mapper added to a class diff, if the class diff is indexed.
+     */
+    void addOperationBodyMapper(UMLClassBaseDiff classDiff, UMLOperationBodyMapper mapper) {
+        if (positions.containsKey(classDiff)) {
+            addMapper(classDiff, mapper);
+        }
+    }
+
+    UMLClassBaseDiff getUMLClassDiff(String className) {
+        UMLClassBaseDiff first = null;
+        for (UMLClassBaseDiff classDiff : byClassName.getOrDefault(className, Collections.emptyList())) {
+            if (classDiff.matches(className) && (first == null || positions.get(classDiff) < positions.get(first))) {
+                first = classDiff;
+            }
+        }
+        return first;
+    }
+
+    UMLClassBaseDiff getUMLClassDiff(UMLType type) {
+        UMLClassBaseDiff first = null;
+        for (UMLClassBaseDiff classDiff : bySimpleClassName.getOrDefault(simpleName(type.getClassType()), Collections.emptyList())) {
+            if (classDiff.matches(type) && (first == null || positions.get(classDiff) < positions.get(first))) {
+                first = classDiff;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * @return For every class diff in list order, its first mapper whose operations have the same signature as the
+     * given operations ({@code operation1} is not checked when null).
+     */
+    List<UMLOperationBodyMapper> findMappersWithMatchingSignatures(UMLOperation operation1, UMLOperation operation2) {
+        Map<UMLClassBaseDiff, UMLOperationBodyMapper> firstMappers = new IdentityHashMap<>();
+        for (IndexedMapper indexed : mappersByOperationName.getOrDefault(operation2.getName(), Collections.emptyList())) {
+            UMLOperationBodyMapper mapper = indexed.mapper;
+            if (mapper.getOperation2().equalSignature(operation2) &&
+                (operation1 == null || mapper.getOperation1().equalSignature(operation1))) {
+                UMLOperationBodyMapper previous = firstMappers.putIfAbsent(indexed.classDiff, mapper);
+                if (previous != null) {
+                    List<UMLOperationBodyMapper> mappers = indexed.classDiff.getOperationBodyMapperList();
+                    if (mappers.indexOf(mapper) < mappers.indexOf(previous)) {
+                        firstMappers.put(indexed.classDiff, mapper);
+                    }
+                }
+            }
+        }
+        if (firstMappers.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<UMLClassBaseDiff> classDiffs = new ArrayList<>(firstMappers.keySet());
+        classDiffs.sort(Comparator.comparing(positions::get));
+        List<UMLOperationBodyMapper> result = new ArrayList<>(classDiffs.size());
+        for (UMLClassBaseDiff classDiff : classDiffs) {
+            result.add(firstMappers.get(classDiff));
+        }
+        return result;
+    }
+
+    private void addMapper(UMLClassBaseDiff classDiff, UMLOperationBodyMapper mapper) {
+        mappersByOperationName.computeIfAbsent(mapper.getOperation2().getName(), k -> new ArrayList<>())
+            .add(new IndexedMapper(classDiff, mapper));
+    }
+
+    /**
+     * The names a class diff matches: {@link UMLClassDiff} only matches its original class name.
+     */
+    private static List<String> classNames(UMLClassBaseDiff classDiff) {
+        String originalClassName = classDiff.getOriginalClass().getName();
+        String nextClassName = classDiff.getNextClass().getName();
+        if (classDiff instanceof UMLClassDiff || originalClassName.equals(nextClassName)) {
+            return Collections.singletonList(originalClassName);
+        }
+        return List.of(originalClassName, nextClassName);
+    }
+
+    /**
+     * A class name ending with "." + type shares the last segment of the type.
+     */
+    private static String simpleName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static class IndexedMapper {
+        private final UMLClassBaseDiff classDiff;
+        private final UMLOperationBodyMapper mapper;
+
+        private IndexedMapper(UMLClassBaseDiff classDiff, UMLOperationBodyMapper mapper) {
+            this.classDiff = classDiff;
+            this.mapper = mapper;
+        }
+    }
+}
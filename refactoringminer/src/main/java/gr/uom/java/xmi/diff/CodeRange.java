@@ -1,9 +1,11 @@
 package gr.uom.java.xmi.diff;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import gr.uom.java.xmi.LocationInfo;
 import gr.uom.java.xmi.LocationInfo.CodeElementType;
 import gr.uom.java.xmi.decomposition.AbstractCodeFragment;
+import java.io.IOException;
 import java.util.List;
 import java.util.Set;
 
@@ -122,6 +124,20 @@ public class CodeRange implements org.refactoringminer.api.CodeRange {
         return sb.toString();
     }
 
+    @Override
+    public void writeJSON(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("filePath", filePath);
+        generator.writeNumberField("startLine", startLine);
+        generator.writeNumberField("endLine", endLine);
+        generator.writeNumberField("startColumn", startColumn);
+        generator.writeNumberField("endColumn", endColumn);
+        generator.writeStringField("codeElementType", codeElementType.name());
+        generator.writeStringField("description", description);
+        generator.writeStringField("codeElement", codeElement);
+        generator.writeEndObject();
+    }
+
     private String escapeQuotes(String s) {
         if (s != null) {
             StringBuilder sb = new StringBuilder();
@@ -24,14 +24,24 @@ public class ExtractOperationDetection {
     private final UMLClassBaseDiff classDiff;
     private final UMLModelDiff modelDiff;
     private final List<OperationInvocation> operationInvocations;
-    private final Map<CallTreeNode, CallTree> callTreeMap = new LinkedHashMap<>();
+    private final Map<CallTreeNode, CallTree> callTreeMap;
 
     public ExtractOperationDetection(UMLOperationBodyMapper mapper, List<UMLOperation> addedOperations, UMLClassBaseDiff classDiff, UMLModelDiff modelDiff) {
+        this(mapper, addedOperations, classDiff, modelDiff, getInvocationsInSourceOperationAfterExtraction(mapper), new LinkedHashMap<>());
+    }
+
+    /**
+     * @param operationInvocations The invocations of the mapper, as computed by {@link #getInvocationsInSourceOperationAfterExtraction}
+     * @param callTreeMap The call trees of the added operations, shared by the detections with the same added operations
+     */
+    ExtractOperationDetection(UMLOperationBodyMapper mapper, List<UMLOperation> addedOperations, UMLClassBaseDiff classDiff, UMLModelDiff modelDiff,
+                              List<OperationInvocation> operationInvocations, Map<CallTreeNode, CallTree> callTreeMap) {
         this.mapper = mapper;
         this.addedOperations = addedOperations;
         this.classDiff = classDiff;
         this.modelDiff = modelDiff;
-        this.operationInvocations = getInvocationsInSourceOperationAfterExtraction(mapper);
+        this.operationInvocations = operationInvocations;
+        this.callTreeMap = callTreeMap;
     }
 
     public static List<OperationInvocation> getInvocationsInSourceOperationAfterExtraction(UMLOperationBodyMapper mapper) {
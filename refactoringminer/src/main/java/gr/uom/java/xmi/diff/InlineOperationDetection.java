@@ -18,17 +18,27 @@ public class InlineOperationDetection {
     private final UMLClassBaseDiff classDiff;
     private final UMLModelDiff modelDiff;
     private final List<OperationInvocation> operationInvocations;
-    private final Map<CallTreeNode, CallTree> callTreeMap = new LinkedHashMap<>();
+    private final Map<CallTreeNode, CallTree> callTreeMap;
 
     public InlineOperationDetection(UMLOperationBodyMapper mapper, List<UMLOperation> removedOperations, UMLClassBaseDiff classDiff, UMLModelDiff modelDiff) {
+        this(mapper, removedOperations, classDiff, modelDiff, getInvocationsInTargetOperationBeforeInline(mapper, classDiff), new LinkedHashMap<>());
+    }
+
+    /**
+     * @param operationInvocations The invocations of the mapper, as computed by {@link #getInvocationsInTargetOperationBeforeInline}
+     * @param callTreeMap The call trees of the removed operations, shared by the detections with the same removed operations
+     */
+    InlineOperationDetection(UMLOperationBodyMapper mapper, List<UMLOperation> removedOperations, UMLClassBaseDiff classDiff, UMLModelDiff modelDiff,
+                             List<OperationInvocation> operationInvocations, Map<CallTreeNode, CallTree> callTreeMap) {
         this.mapper = mapper;
         this.removedOperations = removedOperations;
         this.classDiff = classDiff;
         this.modelDiff = modelDiff;
-        this.operationInvocations = getInvocationsInTargetOperationBeforeInline(mapper);
+        this.operationInvocations = operationInvocations;
+        this.callTreeMap = callTreeMap;
     }
 
-    private List<OperationInvocation> getInvocationsInTargetOperationBeforeInline(UMLOperationBodyMapper mapper) {
+    public static List<OperationInvocation> getInvocationsInTargetOperationBeforeInline(UMLOperationBodyMapper mapper, UMLClassBaseDiff classDiff) {
         List<OperationInvocation> operationInvocations = mapper.getOperation1().getAllOperationInvocations();
         for (StatementObject statement : mapper.getNonMappedLeavesT1()) {
             ExtractOperationDetection.addStatementInvocations(operationInvocations, statement);
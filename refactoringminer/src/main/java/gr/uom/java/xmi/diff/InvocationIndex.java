@@ -0,0 +1,46 @@
+package gr.uom.java.xmi.diff;
+
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.OperationInvocation;
+import gr.uom.java.xmi.decomposition.UMLOperationBodyMapper;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The invocations of the body mappers of a class diff, computed once per mapper, and the names of the operations
+ * they invoke, used to check for extracted and inlined operations only the mappers that may call them. An invocation
+ * only matches an operation with the same name (see {@link OperationInvocation#matchesOperation}), so a mapper that
+ * does not invoke the name would not produce a refactoring for the operation.
+ * <p>
+ * The invocations of a mapper must not change while the index is used, which holds for the statements the
+ * detection reads: extracting an operation only adds back non-mapped T1 statements, and inlining an operation only
+ * changes non-mapped T2 statements.
+ */
+class InvocationIndex {
+    private final Map<UMLOperationBodyMapper, List<OperationInvocation>> invocations = new IdentityHashMap<>();
+    private final Map<UMLOperationBodyMapper, Set<String>> invokedNames = new IdentityHashMap<>();
+
+    InvocationIndex(List<UMLOperationBodyMapper> mappers, Function<UMLOperationBodyMapper, List<OperationInvocation>> invocationsOfMapper) {
+        for (UMLOperationBodyMapper mapper : mappers) {
+            List<OperationInvocation> mapperInvocations = invocationsOfMapper.apply(mapper);
+            Set<String> names = new HashSet<>();
+            for (OperationInvocation invocation : mapperInvocations) {
+                names.add(invocation.getMethodName());
+            }
+            invocations.put(mapper, mapperInvocations);
+            invokedNames.put(mapper, names);
+        }
+    }
+
+    boolean mayInvoke(UMLOperationBodyMapper mapper, UMLOperation operation) {
+        return invokedNames.get(mapper).contains(operation.getName());
+    }
+
+    List<OperationInvocation> getInvocations(UMLOperationBodyMapper mapper) {
+        return invocations.get(mapper);
+    }
+}
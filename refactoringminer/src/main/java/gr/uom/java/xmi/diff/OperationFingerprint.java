@@ -0,0 +1,64 @@
+package gr.uom.java.xmi.diff;
+
+import gr.uom.java.xmi.UMLOperation;
+import gr.uom.java.xmi.decomposition.AbstractCodeFragment;
+import gr.uom.java.xmi.decomposition.CompositeStatementObject;
+import gr.uom.java.xmi.decomposition.OperationBody;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bag of the hashed statements (leaves and composites) of an operation body, used to rule out
+ * operation pairs before an {@link gr.uom.java.xmi.decomposition.UMLOperationBodyMapper} is constructed for them.
+ */
+class OperationFingerprint {
+    private final Map<Integer, Integer> statementHashes = new HashMap<>();
+    private int statementCount;
+
+    OperationFingerprint(UMLOperation operation) {
+        OperationBody body = operation.getBody();
+        if (body != null) {
+            CompositeStatementObject composite = body.getCompositeStatement();
+            add(composite.getLeaves());
+            List<CompositeStatementObject> innerNodes = composite.getInnerNodes();
+            innerNodes.remove(composite);
+            add(innerNodes);
+        }
+    }
+
+    private void add(List<? extends AbstractCodeFragment> statements) {
+        for (AbstractCodeFragment statement : statements) {
+            statementHashes.merge(statement.getString().hashCode(), 1, Integer::sum);
+            statementCount++;
+        }
+    }
+
+    /**
+     * The mapper matches only the statements of the two bodies, so a pair in which one of the bodies
+     * has no statements ends up without mappings.
+     */
+    boolean canHaveMappings(OperationFingerprint other) {
+        return this.statementCount > 0 && other.statementCount > 0;
+    }
+
+    /**
+     * Fraction of the statements of the smaller body that have a textually identical statement in the other body.
+     */
+    double similarity(OperationFingerprint other) {
+        int minCount = Math.min(this.statementCount, other.statementCount);
+        if (minCount == 0) {
+            return 0;
+        }
+        Map<Integer, Integer> smaller = this.statementHashes.size() <= other.statementHashes.size() ? this.statementHashes : other.statementHashes;
+        Map<Integer, Integer> larger = smaller == this.statementHashes ? other.statementHashes : this.statementHashes;
+        int common = 0;
+        for (Map.Entry<Integer, Integer> entry : smaller.entrySet()) {
+            Integer count = larger.get(entry.getKey());
+            if (count != null) {
+                common += Math.min(entry.getValue(), count);
+            }
+        }
+        return (double) common / minCount;
+    }
+}
@@ -1,14 +1,111 @@
 package gr.uom.java.xmi.diff;
 
-import org.apache.commons.text.similarity.LevenshteinDistance;
+import org.refactoringminer.util.MetricsRecorder;
+import org.refactoringminer.util.MetricsRecorder.Counter;
+import java.util.Arrays;
 
+/**
+ * Levenshtein distance with the results of commons-text {@code LevenshteinDistance}. The common prefix and suffix
+ * of the two strings are skipped, the rows of the distance matrix are reused per thread, and the bounded variant
+ * only computes the diagonal band of the matrix that can stay within the threshold.
+ */
 public class StringDistance {
+    private static final int MAXIMUM_CACHED_ROW_LENGTH = 4096;
+    private static final ThreadLocal<int[][]> ROWS = ThreadLocal.withInitial(() -> new int[2][256]);
 
+    /**
+     * @return The edit distance of the two strings if it is not greater than {@code threshold}, or -1 otherwise.
+     */
     public static int editDistance(String a, String b, int threshold) {
-        return new LevenshteinDistance(threshold).apply(a, b);
+        if (a == null || b == null) {
+            throw new IllegalArgumentException("CharSequences must not be null");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        return distance(a, b, threshold);
     }
 
     public static int editDistance(String a, String b) {
-        return new LevenshteinDistance().apply(a, b);
+        if (a == null || b == null) {
+            throw new IllegalArgumentException("CharSequences must not be null");
+        }
+        return distance(a, b, Integer.MAX_VALUE);
+    }
+
+    private static int distance(String a, String b, int threshold) {
+        MetricsRecorder.increment(Counter.EDIT_DISTANCE);
+        int start = 0;
+        int end1 = a.length();
+        int end2 = b.length();
+        while (start < end1 && start < end2 && a.charAt(start) == b.charAt(start)) {
+            start++;
+        }
+        while (end1 > start && end2 > start && a.charAt(end1 - 1) == b.charAt(end2 - 1)) {
+            end1--;
+            end2--;
+        }
+        //the rows of the matrix span the shorter string
+        String left = a;
+        String right = b;
+        int n = end1 - start;
+        int m = end2 - start;
+        if (n > m) {
+            left = b;
+            right = a;
+            n = end2 - start;
+            m = end1 - start;
+        }
+        if (m - n > threshold) {
+            return -1;
+        }
+        if (n == 0) {
+            return m;
+        }
+        int[] p;
+        int[] d;
+        if (n < MAXIMUM_CACHED_ROW_LENGTH) {
+            int[][] rows = ROWS.get();
+            if (rows[0].length <= n) {
+                rows[0] = new int[n + 1];
+                rows[1] = new int[n + 1];
+            }
+            p = rows[0];
+            d = rows[1];
+        } else {
+            p = new int[n + 1];
+            d = new int[n + 1];
+        }
+        int boundary = Math.min(n, threshold) + 1;
+        for (int i = 0; i < boundary; i++) {
+            p[i] = i;
+        }
+        Arrays.fill(p, boundary, n + 1, Integer.MAX_VALUE);
+        Arrays.fill(d, 0, n + 1, Integer.MAX_VALUE);
+        for (int j = 1; j <= m; j++) {
+            char rightJ = right.charAt(start + j - 1);
+            d[0] = j;
+            int min = Math.max(1, j - threshold);
+            int max = j > Integer.MAX_VALUE - threshold ? n : Math.min(n, j + threshold);
+            if (min > 1) {
+                d[min - 1] = Integer.MAX_VALUE;
+            }
+            int lowerBound = Integer.MAX_VALUE;
+            for (int i = min; i <= max; i++) {
+                if (left.charAt(start + i - 1) == rightJ) {
+                    d[i] = p[i - 1];
+                } else {
+                    d[i] = 1 + Math.min(Math.min(d[i - 1], p[i]), p[i - 1]);
+                }
+                lowerBound = Math.min(lowerBound, d[i]);
+            }
+            if (lowerBound > threshold) {
+                return -1;
+            }
+            int[] temp = p;
+            p = d;
+            d = temp;
+        }
+        return p[n] <= threshold ? p[n] : -1;
     }
 }
@@ -23,6 +23,9 @@ import gr.uom.java.xmi.decomposition.replacement.SplitVariableReplacement;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.util.AnalysisBudget;
+import org.refactoringminer.util.MetricsRecorder;
+import org.refactoringminer.util.MetricsRecorder.Phase;
 import org.refactoringminer.util.PrefixSuffixUtils;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -90,13 +93,23 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
         processEnumConstants();
         processInheritance();
         processOperations();
+        long start = MetricsRecorder.startPhase(Phase.CREATE_BODY_MAPPERS);
         createBodyMappers();
+        MetricsRecorder.endPhase(Phase.CREATE_BODY_MAPPERS, start);
         processAnonymousClasses();
         checkForOperationSignatureChanges();
         processAttributes();
         checkForAttributeChanges();
-        checkForInlinedOperations();
-        checkForExtractedOperations();
+        if (!AnalysisBudget.skip("checkForInlinedOperations")) {
+            start = MetricsRecorder.startPhase(Phase.CHECK_FOR_INLINED_OPERATIONS);
+            checkForInlinedOperations();
+            MetricsRecorder.endPhase(Phase.CHECK_FOR_INLINED_OPERATIONS, start);
+        }
+        if (!AnalysisBudget.skip("checkForExtractedOperations")) {
+            start = MetricsRecorder.startPhase(Phase.CHECK_FOR_EXTRACTED_OPERATIONS);
+            checkForExtractedOperations();
+            MetricsRecorder.endPhase(Phase.CHECK_FOR_EXTRACTED_OPERATIONS, start);
+        }
     }
 
     private void processModifiers() {
@@ -272,7 +285,7 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
                 this.removedOperations.add(operation);
             } else if (!mapperListContainsOperation(operation, operationWithTheSameSignature)) {
                 UMLOperationBodyMapper mapper = new UMLOperationBodyMapper(operation, operationWithTheSameSignature, this);
-                this.operationBodyMapperList.add(mapper);
+                addOperationBodyMapper(mapper);
             }
         }
         for (UMLOperation operation : nextClass.getOperations()) {
@@ -281,7 +294,7 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
                 this.addedOperations.add(operation);
             } else if (!mapperListContainsOperation(operationWithTheSameSignature, operation)) {
                 UMLOperationBodyMapper mapper = new UMLOperationBodyMapper(operationWithTheSameSignature, operation, this);
-                this.operationBodyMapperList.add(mapper);
+                addOperationBodyMapper(mapper);
             }
         }
     }
@@ -495,6 +508,9 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 
     public void addOperationBodyMapper(UMLOperationBodyMapper operationBodyMapper) {
         this.operationBodyMapperList.add(operationBodyMapper);
+        if (modelDiff != null) {
+            modelDiff.operationBodyMapperAdded(this, operationBodyMapper);
+        }
     }
 
     public List<Refactoring> getRefactoringsBeforePostProcessing() {
@@ -1676,9 +1692,16 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 
     private void checkForInlinedOperations() throws RefactoringMinerTimedOutException {
         List<UMLOperation> operationsToBeRemoved = new ArrayList<>();
+        InvocationIndex invocationIndex = new InvocationIndex(getOperationBodyMapperList(),
+            mapper -> InlineOperationDetection.getInvocationsInTargetOperationBeforeInline(mapper, this));
+        Map<CallTreeNode, CallTree> callTreeMap = new LinkedHashMap<>();
         for (UMLOperation removedOperation : removedOperations) {
             for (UMLOperationBodyMapper mapper : getOperationBodyMapperList()) {
-                InlineOperationDetection detection = new InlineOperationDetection(mapper, removedOperations, this, modelDiff);
+                if (!invocationIndex.mayInvoke(mapper, removedOperation)) {
+                    continue;
+                }
+                InlineOperationDetection detection = new InlineOperationDetection(mapper, removedOperations, this, modelDiff,
+                    invocationIndex.getInvocations(mapper), callTreeMap);
                 List<InlineOperationRefactoring> refs = detection.check(removedOperation);
                 for (InlineOperationRefactoring refactoring : refs) {
                     refactorings.add(refactoring);
@@ -1694,17 +1717,24 @@ public abstract class UMLClassBaseDiff extends UMLAbstractClassDiff implements C
 
     private void checkForExtractedOperations() throws RefactoringMinerTimedOutException {
         List<UMLOperation> operationsToBeRemoved = new ArrayList<>();
+        InvocationIndex invocationIndex = new InvocationIndex(getOperationBodyMapperList(),
+            ExtractOperationDetection::getInvocationsInSourceOperationAfterExtraction);
+        Map<CallTreeNode, CallTree> callTreeMap = new LinkedHashMap<>();
         for (UMLOperation addedOperation : addedOperations) {
             for (UMLOperationBodyMapper mapper : getOperationBodyMapperList()) {
-                ExtractOperationDetection detection = new ExtractOperationDetection(mapper, addedOperations, this, modelDiff);
-                List<ExtractOperationRefactoring> refs = detection.check(addedOperation);
-                for (ExtractOperationRefactoring refactoring : refs) {
-                    refactorings.add(refactoring);
-                    UMLOperationBodyMapper operationBodyMapper = refactoring.getBodyMapper();
-                    processMapperRefactorings(operationBodyMapper, refactorings);
-                    mapper.addChildMapper(operationBodyMapper);
-                    operationsToBeRemoved.add(addedOperation);
+                if (invocationIndex.mayInvoke(mapper, addedOperation)) {
+                    ExtractOperationDetection detection = new ExtractOperationDetection(mapper, addedOperations, this, modelDiff,
+                        invocationIndex.getInvocations(mapper), callTreeMap);
+                    List<ExtractOperationRefactoring> refs = detection.check(addedOperation);
+                    for (ExtractOperationRefactoring refactoring : refs) {
+                        refactorings.add(refactoring);
+                        UMLOperationBodyMapper operationBodyMapper = refactoring.getBodyMapper();
+                        processMapperRefactorings(operationBodyMapper, refactorings);
+                        mapper.addChildMapper(operationBodyMapper);
+                        operationsToBeRemoved.add(addedOperation);
+                    }
                 }
+                //checked for every pair, as the renames found for the other mappers may conflict with its child mappers
                 checkForInconsistentVariableRenames(mapper);
             }
         }
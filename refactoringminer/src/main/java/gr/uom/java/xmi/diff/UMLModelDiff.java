@@ -30,10 +30,13 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.util.AnalysisBudget;
+import org.refactoringminer.util.MetricsRecorder;
 import org.refactoringminer.util.PrefixSuffixUtils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -43,7 +46,12 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class UMLModelDiff {
     private static final Pattern RETURN_NUMBER_LITERAL = Pattern.compile("return \\d+;\n");
@@ -67,6 +75,15 @@ public class UMLModelDiff {
     private final List<Refactoring> refactorings;
     private final Set<String> deletedFolderPaths;
     private final Set<Pair<UMLOperation, UMLOperation>> processedOperationPairs = new HashSet<>();
+    private final Map<UMLOperation, OperationFingerprint> operationFingerprints = new IdentityHashMap<>();
+    //rebuilt from the class diff lists when null
+    private ClassDiffIndex classDiffIndex = new ClassDiffIndex();
+    private ForkJoinPool classDiffPool = null;
+    //the class diff lookups of a common class diff processed concurrently, each checking whether it would find a class diff
+    private final ThreadLocal<List<BooleanSupplier>> concurrentLookups = new ThreadLocal<>();
+    private boolean operationMovePrefilter = true;
+    private double minimumOperationMoveSimilarity = 0;
+    private int skippedOperationMoveMappers = 0;
 
     public UMLModelDiff(UMLModel parentModel, UMLModel childModel) {
         this.parentModel = parentModel;
@@ -87,6 +104,131 @@ public class UMLModelDiff {
         this.deletedFolderPaths = new LinkedHashSet<>();
     }
 
+    /**
+     * Enables the fingerprint check that skips the operation pairs, which cannot be reported as moved operations,
+     * before a body mapper is constructed for them (enabled by default).
+     */
+    public void setOperationMovePrefilter(boolean operationMovePrefilter) {
+        this.operationMovePrefilter = operationMovePrefilter;
+    }
+
+    /**
+     * Minimum fraction of textually identical statements that two operation bodies should share to be compared
+     * when checking for moved operations. The default value 0 keeps all pairs that may have mappings, while higher
+     * values also skip pairs matching only with replacements.
+     */
+    public void setMinimumOperationMoveSimilarity(double minimumOperationMoveSimilarity) {
+        if (minimumOperationMoveSimilarity < 0 || minimumOperationMoveSimilarity > 1) {
+            throw new IllegalArgumentException("Minimum similarity should be between 0 and 1");
+        }
+        this.minimumOperationMoveSimilarity = minimumOperationMoveSimilarity;
+    }
+
+    /**
+     * Number of body mapper constructions avoided by the operation move prefilter.
+     */
+    public int getSkippedOperationMoveMappers() {
+        return skippedOperationMoveMappers;
+    }
+
+    /**
+     * Set the pool processing the class diffs concurrently, or null (the default) to process them one at a time.
+     */
+    public void setClassDiffPool(ForkJoinPool classDiffPool) {
+        this.classDiffPool = classDiffPool;
+    }
+
+    /**
+     * Process the diffs of the common classes and add the non-empty ones, before any other class diff is added.
+     * <p>
+     * The processing of a class diff looks up the class diffs added before it, so it depends on the order of the
+     * class diffs. With a pool, the class diffs are processed concurrently while no class diff is added, and their
+     * lookups are recorded. They are then added in order, and a class diff is processed again if one of its lookups
+     * finds one of the class diffs added before it, so that the result is the same as processing them in order.
+     * <p>
+     * A class diff only maps the operations of its own classes, so the concurrent processing does not share the
+     * statements being mapped. A class diff processed again first discards the arguments put in its statements by
+     * the first processing, which a sequential processing would not find there.
+     */
+    public void processCommonClassDiffs(List<UMLClassDiff> classDiffs) throws RefactoringMinerTimedOutException {
+        if (classDiffPool == null || classDiffs.size() < 2) {
+            for (UMLClassDiff classDiff : classDiffs) {
+                classDiff.process();
+                if (!classDiff.isEmpty())
+                    addUMLClassDiff(classDiff);
+            }
+            return;
+        }
+        List<List<BooleanSupplier>> lookups = inClassDiffPool(classDiffs, classDiff -> {
+            concurrentLookups.set(new ArrayList<>());
+            try {
+                classDiff.process();
+                return concurrentLookups.get();
+            } catch (RefactoringMinerTimedOutException e) {
+                throw new CompletionException(e);
+            } finally {
+                concurrentLookups.remove();
+            }
+        });
+        for (int i = 0; i < classDiffs.size(); i++) {
+            UMLClassDiff classDiff = classDiffs.get(i);
+            for (BooleanSupplier lookup : lookups.get(i)) {
+                if (lookup.getAsBoolean()) {
+                    clearArgumentization(classDiff.getOriginalClass());
+                    clearArgumentization(classDiff.getNextClass());
+                    classDiff = new UMLClassDiff(classDiff.getOriginalClass(), classDiff.getNextClass(), this);
+                    classDiff.process();
+                    break;
+                }
+            }
+            if (!classDiff.isEmpty())
+                addUMLClassDiff(classDiff);
+        }
+    }
+
+    /**
+     * Apply the given function to every class diff in the class diff pool, on behalf of the metrics recorder and
+     * the analysis budget of the current thread.
+     *
+     * @return The results in the order of the class diffs
+     */
+    private <T extends UMLClassBaseDiff, R> List<R> inClassDiffPool(List<T> classDiffs, Function<T, R> function) throws RefactoringMinerTimedOutException {
+        MetricsRecorder recorder = MetricsRecorder.current();
+        AnalysisBudget budget = AnalysisBudget.current();
+        try {
+            return classDiffPool.submit(() -> classDiffs.parallelStream()
+                .map(classDiff -> MetricsRecorder.callWith(recorder, () ->
+                    AnalysisBudget.callWith(budget, () -> function.apply(classDiff))))
+                .collect(Collectors.toList())).join();
+        } catch (RuntimeException e) {
+            //the exception of a worker may be wrapped by the pool
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof RefactoringMinerTimedOutException) {
+                    throw (RefactoringMinerTimedOutException) cause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static void clearArgumentization(UMLAbstractClass umlClass) {
+        for (UMLOperation operation : umlClass.getOperations()) {
+            if (operation.getBody() != null) {
+                operation.getBody().clearArgumentization();
+            }
+        }
+        for (UMLAnonymousClass anonymousClass : umlClass.getAnonymousClassList()) {
+            clearArgumentization(anonymousClass);
+        }
+    }
+
+    private void recordLookup(BooleanSupplier findsClassDiff) {
+        List<BooleanSupplier> lookups = concurrentLookups.get();
+        if (lookups != null) {
+            lookups.add(findsClassDiff);
+        }
+    }
+
     public static boolean looksLikeSameType(String parent, String addedClassName) {
         if (addedClassName.contains(".") && !parent.contains(".")) {
             return parent.equals(addedClassName.substring(addedClassName.lastIndexOf(".") + 1));
@@ -101,31 +243,11 @@ public class UMLModelDiff {
     }
 
     public UMLAbstractClass findClassInParentModel(String className) {
-        for (UMLClass umlClass : parentModel.getClassList()) {
-            if (umlClass.getName().equals(className)) {
-                return umlClass;
-            }
-        }
-        for (UMLClass umlClass : parentModel.getClassList()) {
-            if (umlClass.getName().endsWith("." + className)) {
-                return umlClass;
-            }
-        }
-        return null;
+        return parentModel.findClass(className);
     }
 
     public UMLAbstractClass findClassInChildModel(String className) {
-        for (UMLClass umlClass : childModel.getClassList()) {
-            if (umlClass.getName().equals(className)) {
-                return umlClass;
-            }
-        }
-        for (UMLClass umlClass : childModel.getClassList()) {
-            if (umlClass.getName().endsWith("." + className)) {
-                return umlClass;
-            }
-        }
-        return null;
+        return childModel.findClass(className);
     }
 
     public void reportAddedClass(UMLClass umlClass) {
@@ -156,6 +278,7 @@ public class UMLModelDiff {
 
     public void addUMLClassDiff(UMLClassDiff classDiff) {
         this.commonClassDiffList.add(classDiff);
+        indexClassDiff(classDiff, 0);
     }
 
     public boolean commonlyImplementedOperations(UMLOperation operation1, UMLOperation operation2, UMLClassBaseDiff classDiff2) {
@@ -175,43 +298,39 @@ public class UMLModelDiff {
     }
 
     public UMLClassBaseDiff getUMLClassDiff(String className) {
-        for (UMLClassDiff classDiff : commonClassDiffList) {
-            if (classDiff.matches(className))
-                return classDiff;
-        }
-        for (UMLClassMoveDiff classDiff : classMoveDiffList) {
-            if (classDiff.matches(className))
-                return classDiff;
-        }
-        for (UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-            if (classDiff.matches(className))
-                return classDiff;
-        }
-        for (UMLClassRenameDiff classDiff : classRenameDiffList) {
-            if (classDiff.matches(className))
-                return classDiff;
-        }
-        return null;
+        recordLookup(() -> getClassDiffIndex().getUMLClassDiff(className) != null);
+        return getClassDiffIndex().getUMLClassDiff(className);
     }
 
     public UMLClassBaseDiff getUMLClassDiff(UMLType type) {
-        for (UMLClassDiff classDiff : commonClassDiffList) {
-            if (classDiff.matches(type))
-                return classDiff;
-        }
-        for (UMLClassMoveDiff classDiff : classMoveDiffList) {
-            if (classDiff.matches(type))
-                return classDiff;
+        recordLookup(() -> getClassDiffIndex().getUMLClassDiff(type) != null);
+        return getClassDiffIndex().getUMLClassDiff(type);
+    }
+
+    private void indexClassDiff(UMLClassBaseDiff classDiff, int list) {
+        if (classDiffIndex != null) {
+            classDiffIndex.addClassDiff(classDiff, list);
         }
-        for (UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-            if (classDiff.matches(type))
-                return classDiff;
+    }
+
+    /**
+     * Index a mapper added to a class diff after the class diff was added to the model diff.
+     */
+    void operationBodyMapperAdded(UMLClassBaseDiff classDiff, UMLOperationBodyMapper mapper) {
+        if (classDiffIndex != null) {
+            classDiffIndex.addOperationBodyMapper(classDiff, mapper);
         }
-        for (UMLClassRenameDiff classDiff : classRenameDiffList) {
-            if (classDiff.matches(type))
-                return classDiff;
+    }
+
+    private ClassDiffIndex getClassDiffIndex() {
+        if (classDiffIndex == null) {
+            classDiffIndex = new ClassDiffIndex();
+            commonClassDiffList.forEach(classDiff -> classDiffIndex.addClassDiff(classDiff, 0));
+            classMoveDiffList.forEach(classDiff -> classDiffIndex.addClassDiff(classDiff, 1));
+            innerClassMoveDiffList.forEach(classDiff -> classDiffIndex.addClassDiff(classDiff, 2));
+            classRenameDiffList.forEach(classDiff -> classDiffIndex.addClassDiff(classDiff, 3));
         }
-        return null;
+        return classDiffIndex;
     }
 
     private UMLClassBaseDiff getUMLClassDiffWithAttribute(Replacement pattern) {
@@ -481,12 +600,13 @@ public class UMLModelDiff {
     }
 
     public void checkForMovedClasses(Map<String, String> renamedFileHints, Set<String> repositoryDirectories, UMLClassMatcher matcher) throws RefactoringMinerTimedOutException {
+        AddedClassIndex addedClassIndex = new AddedClassIndex(addedClasses);
         for (Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext(); ) {
             UMLClass removedClass = removedClassIterator.next();
             TreeSet<UMLClassMoveDiff> diffSet = new TreeSet<>(new ClassMoveComparator());
-            for (UMLClass addedClass : addedClasses) {
-                String removedClassSourceFile = removedClass.getSourceFile();
-                String renamedFile = renamedFileHints.get(removedClassSourceFile);
+            String removedClassSourceFile = removedClass.getSourceFile();
+            String renamedFile = renamedFileHints.get(removedClassSourceFile);
+            if (!addedClasses.isEmpty()) {
                 String removedClassSourceFolder = "";
                 if (removedClassSourceFile.contains("/")) {
                     removedClassSourceFolder = removedClassSourceFile.substring(0, removedClassSourceFile.lastIndexOf("/"));
@@ -502,6 +622,8 @@ public class UMLModelDiff {
                         }
                     }
                 }
+            }
+            for (UMLClass addedClass : addedClassIndex.candidates(removedClass, renamedFile, matcher.candidates())) {
                 if (matcher.match(removedClass, addedClass, renamedFile)) {
                     if (!conflictingMoveOfTopLevelClass(removedClass, addedClass)) {
                         UMLClassMoveDiff classMoveDiff = new UMLClassMoveDiff(removedClass, addedClass, this);
@@ -513,7 +635,9 @@ public class UMLModelDiff {
                 UMLClassMoveDiff minClassMoveDiff = diffSet.first();
                 minClassMoveDiff.process();
                 classMoveDiffList.add(minClassMoveDiff);
+                indexClassDiff(minClassMoveDiff, 1);
                 addedClasses.remove(minClassMoveDiff.getMovedClass());
+                addedClassIndex.remove(minClassMoveDiff.getMovedClass());
                 removedClassIterator.remove();
             }
         }
@@ -527,10 +651,12 @@ public class UMLModelDiff {
                 UMLClassMoveDiff classMoveJ = allClassMoves.get(j);
                 if (classMoveI.isInnerClassMove(classMoveJ)) {
                     innerClassMoveDiffList.add(classMoveJ);
+                    indexClassDiff(classMoveJ, 2);
                 }
             }
         }
         this.classMoveDiffList.removeAll(innerClassMoveDiffList);
+        classDiffIndex = null;
     }
 
     private boolean conflictingMoveOfTopLevelClass(UMLClass removedClass, UMLClass addedClass) {
@@ -549,11 +675,12 @@ public class UMLModelDiff {
     }
 
     public void checkForRenamedClasses(Map<String, String> renamedFileHints, UMLClassMatcher matcher) throws RefactoringMinerTimedOutException {
+        AddedClassIndex addedClassIndex = new AddedClassIndex(addedClasses);
         for (Iterator<UMLClass> removedClassIterator = removedClasses.iterator(); removedClassIterator.hasNext(); ) {
             UMLClass removedClass = removedClassIterator.next();
             TreeSet<UMLClassRenameDiff> diffSet = new TreeSet<>(new ClassRenameComparator());
-            for (UMLClass addedClass : addedClasses) {
-                String renamedFile = renamedFileHints.get(removedClass.getSourceFile());
+            String renamedFile = renamedFileHints.get(removedClass.getSourceFile());
+            for (UMLClass addedClass : addedClassIndex.candidates(removedClass, renamedFile, matcher.candidates())) {
                 if (matcher.match(removedClass, addedClass, renamedFile)) {
                     if (!conflictingMoveOfTopLevelClass(removedClass, addedClass) && !innerClassWithTheSameName(removedClass, addedClass)) {
                         UMLClassRenameDiff classRenameDiff = new UMLClassRenameDiff(removedClass, addedClass, this);
@@ -565,7 +692,9 @@ public class UMLModelDiff {
                 UMLClassRenameDiff minClassRenameDiff = diffSet.first();
                 minClassRenameDiff.process();
                 classRenameDiffList.add(minClassRenameDiff);
+                indexClassDiff(minClassRenameDiff, 3);
                 addedClasses.remove(minClassRenameDiff.getRenamedClass());
+                addedClassIndex.remove(minClassRenameDiff.getRenamedClass());
                 removedClassIterator.remove();
             }
         }
@@ -577,10 +706,12 @@ public class UMLModelDiff {
             for (UMLClassMoveDiff classMove : allClassMoves) {
                 if (classRename.isInnerClassMove(classMove)) {
                     innerClassMoveDiffList.add(classMove);
+                    indexClassDiff(classMove, 2);
                 }
             }
         }
         this.classMoveDiffList.removeAll(innerClassMoveDiffList);
+        classDiffIndex = null;
     }
 
     private boolean innerClassWithTheSameName(UMLClass removedClass, UMLClass addedClass) {
@@ -1382,23 +1513,14 @@ public class UMLModelDiff {
         refactorings.addAll(identifyConvertAnonymousClassToTypeRefactorings());
         Map<Replacement, Set<CandidateAttributeRefactoring>> renameMap = new LinkedHashMap<>();
         Map<MergeVariableReplacement, Set<CandidateMergeVariableRefactoring>> mergeMap = new LinkedHashMap<>();
-        for (UMLClassDiff classDiff : commonClassDiffList) {
-            refactorings.addAll(classDiff.getRefactorings());
-            extractMergePatterns(classDiff, mergeMap);
-            extractRenamePatterns(classDiff, renameMap);
-        }
-        for (UMLClassMoveDiff classDiff : classMoveDiffList) {
-            refactorings.addAll(classDiff.getRefactorings());
-            extractMergePatterns(classDiff, mergeMap);
-            extractRenamePatterns(classDiff, renameMap);
-        }
-        for (UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-            refactorings.addAll(classDiff.getRefactorings());
-            extractMergePatterns(classDiff, mergeMap);
-            extractRenamePatterns(classDiff, renameMap);
-        }
-        for (UMLClassRenameDiff classDiff : classRenameDiffList) {
-            refactorings.addAll(classDiff.getRefactorings());
+        List<UMLClassBaseDiff> classDiffs = new ArrayList<>(commonClassDiffList);
+        classDiffs.addAll(classMoveDiffList);
+        classDiffs.addAll(innerClassMoveDiffList);
+        classDiffs.addAll(classRenameDiffList);
+        List<List<Refactoring>> classDiffRefactorings = getClassDiffRefactorings(classDiffs);
+        for (int i = 0; i < classDiffs.size(); i++) {
+            UMLClassBaseDiff classDiff = classDiffs.get(i);
+            refactorings.addAll(classDiffRefactorings.get(i));
             extractMergePatterns(classDiff, mergeMap);
             extractRenamePatterns(classDiff, renameMap);
         }
@@ -1414,6 +1536,7 @@ public class UMLModelDiff {
                     extractMergePatterns(renameDiff, mergeMap);
                     extractRenamePatterns(renameDiff, renameMap);
                     classRenameDiffList.add(renameDiff);
+                    indexClassDiff(renameDiff, 3);
                     Refactoring refactoring;
                     if (renameDiff.samePackage())
                         refactoring = new RenameClassRefactoring(renameDiff.getOriginalClass(), renameDiff.getRenamedClass());
@@ -1549,24 +1672,35 @@ public class UMLModelDiff {
                 }
             }
         }
-        refactorings.addAll(identifyExtractSuperclassRefactorings());
-        refactorings.addAll(identifyExtractClassRefactorings(commonClassDiffList));
-        refactorings.addAll(identifyExtractClassRefactorings(classMoveDiffList));
-        refactorings.addAll(identifyExtractClassRefactorings(innerClassMoveDiffList));
-        refactorings.addAll(identifyExtractClassRefactorings(classRenameDiffList));
-        checkForOperationMovesBetweenCommonClasses();
-        checkForOperationMovesIncludingRemovedAndAddedClasses();
-        List<UMLOperation> addedAndExtractedOperationsInCommonClasses = getAddedAndExtractedOperationsInCommonClasses();
-        if (addedAndExtractedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
-            checkForExtractedAndMovedOperations(getOperationBodyMappersInCommonClasses(), addedAndExtractedOperationsInCommonClasses);
+        //the phases below are skipped once the time budget of the commit is exhausted
+        if (!AnalysisBudget.skip("identifyExtractSuperclassRefactorings")) {
+            refactorings.addAll(identifyExtractSuperclassRefactorings());
         }
-        List<UMLOperation> addedOperationsInMovedAndRenamedClasses = getAddedOperationsInMovedAndRenamedClasses();
-        if (addedOperationsInMovedAndRenamedClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
-            checkForExtractedAndMovedOperations(getOperationBodyMappersInMovedAndRenamedClasses(), addedOperationsInMovedAndRenamedClasses);
+        if (!AnalysisBudget.skip("identifyExtractClassRefactorings")) {
+            refactorings.addAll(identifyExtractClassRefactorings(commonClassDiffList));
+            refactorings.addAll(identifyExtractClassRefactorings(classMoveDiffList));
+            refactorings.addAll(identifyExtractClassRefactorings(innerClassMoveDiffList));
+            refactorings.addAll(identifyExtractClassRefactorings(classRenameDiffList));
         }
-        List<UMLOperation> removedAndInlinedOperationsInCommonClasses = getRemovedAndInlinedOperationsInCommonClasses();
-        if (removedAndInlinedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
-            checkForMovedAndInlinedOperations(getOperationBodyMappersInCommonClasses(), removedAndInlinedOperationsInCommonClasses);
+        if (!AnalysisBudget.skip("checkForOperationMoves")) {
+            checkForOperationMovesBetweenCommonClasses();
+            checkForOperationMovesIncludingRemovedAndAddedClasses();
+        }
+        if (!AnalysisBudget.skip("checkForExtractedAndMovedOperations")) {
+            List<UMLOperation> addedAndExtractedOperationsInCommonClasses = getAddedAndExtractedOperationsInCommonClasses();
+            if (addedAndExtractedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
+                checkForExtractedAndMovedOperations(getOperationBodyMappersInCommonClasses(), addedAndExtractedOperationsInCommonClasses);
+            }
+            List<UMLOperation> addedOperationsInMovedAndRenamedClasses = getAddedOperationsInMovedAndRenamedClasses();
+            if (addedOperationsInMovedAndRenamedClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
+                checkForExtractedAndMovedOperations(getOperationBodyMappersInMovedAndRenamedClasses(), addedOperationsInMovedAndRenamedClasses);
+            }
+        }
+        if (!AnalysisBudget.skip("checkForMovedAndInlinedOperations")) {
+            List<UMLOperation> removedAndInlinedOperationsInCommonClasses = getRemovedAndInlinedOperationsInCommonClasses();
+            if (removedAndInlinedOperationsInCommonClasses.size() <= MAXIMUM_NUMBER_OF_COMPARED_METHODS) {
+                checkForMovedAndInlinedOperations(getOperationBodyMappersInCommonClasses(), removedAndInlinedOperationsInCommonClasses);
+            }
         }
         List<MoveAttributeRefactoring> moveAttributeRefactorings = new ArrayList<>();
         moveAttributeRefactorings.addAll(checkForAttributeMovesBetweenCommonClasses());
@@ -1763,61 +1897,53 @@ public class UMLModelDiff {
     }
 
     private List<UMLOperationBodyMapper> findMappersWithMatchingSignatures(UMLOperation operation1, UMLOperation operation2) {
-        List<UMLOperationBodyMapper> mappers = new ArrayList<>();
-        for (UMLClassDiff classDiff : commonClassDiffList) {
-            UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignatures(operation1, operation2);
-            if (mapper != null) {
-                mappers.add(mapper);
-            }
-        }
-        for (UMLClassMoveDiff classDiff : classMoveDiffList) {
-            UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignatures(operation1, operation2);
-            if (mapper != null) {
-                mappers.add(mapper);
-            }
-        }
-        for (UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-            UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignatures(operation1, operation2);
-            if (mapper != null) {
-                mappers.add(mapper);
-            }
-        }
-        for (UMLClassRenameDiff classDiff : classRenameDiffList) {
-            UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignatures(operation1, operation2);
-            if (mapper != null) {
-                mappers.add(mapper);
-            }
-        }
-        return mappers;
+        recordLookup(() -> !getClassDiffIndex().findMappersWithMatchingSignatures(operation1, operation2).isEmpty());
+        return getClassDiffIndex().findMappersWithMatchingSignatures(operation1, operation2);
     }
 
     public List<UMLOperationBodyMapper> findMappersWithMatchingSignature2(UMLOperation operation2) {
-        List<UMLOperationBodyMapper> mappers = new ArrayList<>();
-        for (UMLClassDiff classDiff : commonClassDiffList) {
-            UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignature2(operation2);
-            if (mapper != null) {
-                mappers.add(mapper);
-            }
-        }
-        for (UMLClassMoveDiff classDiff : classMoveDiffList) {
-            UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignature2(operation2);
-            if (mapper != null) {
-                mappers.add(mapper);
-            }
-        }
-        for (UMLClassMoveDiff classDiff : innerClassMoveDiffList) {
-            UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignature2(operation2);
-            if (mapper != null) {
-                mappers.add(mapper);
-            }
-        }
-        for (UMLClassRenameDiff classDiff : classRenameDiffList) {
-            UMLOperationBodyMapper mapper = classDiff.findMapperWithMatchingSignature2(operation2);
-            if (mapper != null) {
-                mappers.add(mapper);
+        recordLookup(() -> !getClassDiffIndex().findMappersWithMatchingSignatures(null, operation2).isEmpty());
+        return getClassDiffIndex().findMappersWithMatchingSignatures(null, operation2);
+    }
+
+    /**
+     * The refactorings of a class diff only depend on the class diff, so they can be computed concurrently.
+     */
+    private List<List<Refactoring>> getClassDiffRefactorings(List<UMLClassBaseDiff> classDiffs) throws RefactoringMinerTimedOutException {
+        if (classDiffPool == null || classDiffs.size() < 2) {
+            List<List<Refactoring>> classDiffRefactorings = new ArrayList<>();
+            for (UMLClassBaseDiff classDiff : classDiffs) {
+                classDiffRefactorings.add(classDiff.getRefactorings());
+            }
+            return classDiffRefactorings;
+        }
+        //the lookups of the workers should not rebuild the index concurrently
+        getClassDiffIndex();
+        //a class diff may be in a list twice, and its refactorings are computed again for its next occurrences
+        Set<UMLClassBaseDiff> distinctClassDiffs = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<UMLClassBaseDiff> firstOccurrences = new ArrayList<>();
+        for (UMLClassBaseDiff classDiff : classDiffs) {
+            if (distinctClassDiffs.add(classDiff)) {
+                firstOccurrences.add(classDiff);
+            }
+        }
+        List<List<Refactoring>> firstOccurrenceRefactorings = inClassDiffPool(firstOccurrences, classDiff -> {
+            try {
+                return classDiff.getRefactorings();
+            } catch (RefactoringMinerTimedOutException e) {
+                throw new CompletionException(e);
+            }
+        });
+        List<List<Refactoring>> classDiffRefactorings = new ArrayList<>();
+        distinctClassDiffs.clear();
+        for (UMLClassBaseDiff classDiff : classDiffs) {
+            if (distinctClassDiffs.add(classDiff)) {
+                classDiffRefactorings.add(firstOccurrenceRefactorings.get(distinctClassDiffs.size() - 1));
+            } else {
+                classDiffRefactorings.add(classDiff.getRefactorings());
             }
         }
-        return mappers;
+        return classDiffRefactorings;
     }
 
     private void extractMergePatterns(UMLClassBaseDiff classDiff, Map<MergeVariableReplacement, Set<CandidateMergeVariableRefactoring>> mergeMap) {
@@ -2291,6 +2417,10 @@ public class UMLModelDiff {
                 for (UMLOperation removedOperation : removedOperations) {
                     Pair<UMLOperation, UMLOperation> pair = Pair.of(removedOperation, addedOperation);
                     if (!processedOperationPairs.contains(pair) && removedOperation.testMethodCheck(addedOperation)) {
+                        if (skipOperationMove(removedOperation, addedOperation)) {
+                            processedOperationPairs.add(pair);
+                            continue;
+                        }
                         UMLClassBaseDiff umlClassDiff = getUMLClassDiff(removedOperation.getClassName());
                         if (umlClassDiff == null) {
                             umlClassDiff = getUMLClassDiff(addedOperation.getClassName());
@@ -2384,6 +2514,10 @@ public class UMLModelDiff {
                 for (UMLOperation addedOperation : addedOperations) {
                     Pair<UMLOperation, UMLOperation> pair = Pair.of(removedOperation, addedOperation);
                     if (!processedOperationPairs.contains(pair) && removedOperation.testMethodCheck(addedOperation)) {
+                        if (skipOperationMove(removedOperation, addedOperation)) {
+                            processedOperationPairs.add(pair);
+                            continue;
+                        }
                         UMLClassBaseDiff umlClassDiff = getUMLClassDiff(removedOperation.getClassName());
                         if (umlClassDiff == null) {
                             umlClassDiff = getUMLClassDiff(addedOperation.getClassName());
@@ -2558,6 +2692,20 @@ public class UMLModelDiff {
         return true;
     }
 
+    private boolean skipOperationMove(UMLOperation removedOperation, UMLOperation addedOperation) {
+        if (!operationMovePrefilter || removedOperation.equalSignatureForAbstractMethods(addedOperation)) {
+            return false;
+        }
+        OperationFingerprint removedFingerprint = operationFingerprints.computeIfAbsent(removedOperation, OperationFingerprint::new);
+        OperationFingerprint addedFingerprint = operationFingerprints.computeIfAbsent(addedOperation, OperationFingerprint::new);
+        if (!removedFingerprint.canHaveMappings(addedFingerprint) ||
+            (minimumOperationMoveSimilarity > 0 && removedFingerprint.similarity(addedFingerprint) < minimumOperationMoveSimilarity)) {
+            skippedOperationMoveMappers++;
+            return true;
+        }
+        return false;
+    }
+
     private boolean mappedElementsMoreThanNonMappedT1AndT2(int mappings, UMLOperationBodyMapper operationBodyMapper) {
         int nonMappedElementsT1 = operationBodyMapper.nonMappedElementsT1();
         int nonMappedElementsT2 = operationBodyMapper.nonMappedElementsT2();
@@ -73,6 +73,8 @@ public interface GitHistoryRefactoringMiner {
      * @param commitId   The SHA key that identifies the commit.
      * @param handler    A handler object that is responsible to process the detected refactorings.
      * @param timeout    A timeout, in seconds. When timeout is reached, the operation stops and returns no refactorings.
+     *                   Implementations may pass the refactorings found before the timeout as a partial result
+     *                   (see {@link RefactoringHandler#handlePartialResult}).
      */
     void detectAtCommit(Repository repository, String commitId, RefactoringHandler handler, int timeout);
 
@@ -83,6 +85,7 @@ public interface GitHistoryRefactoringMiner {
      * @param commitId The SHA key that identifies the commit.
      * @param handler  A handler object that is responsible to process the detected refactorings.
      * @param timeout  A timeout, in seconds. When timeout is reached, the operation stops and returns no refactorings.
+     *                 Implementations may pass the refactorings found before the timeout as a partial result.
      */
     void detectAtCommit(String gitURL, String commitId, RefactoringHandler handler, int timeout);
 
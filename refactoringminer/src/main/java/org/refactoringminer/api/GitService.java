@@ -31,14 +31,24 @@ public interface GitService {
 
     RevWalk fetchAndCreateNewRevsWalk(Repository repository, String branch) throws Exception;
 
+    RevWalk fetchAndCreateNewRevsWalk(Repository repository, String branch, List<String> analyzedCommits) throws Exception;
+
     RevWalk createAllRevsWalk(Repository repository) throws Exception;
 
     RevWalk createAllRevsWalk(Repository repository, String branch) throws Exception;
 
+    /**
+     * Walk the commits of shard {@code shardIndex} out of {@code shardCount} shards of similar estimated cost.
+     * The shards of the same history are disjoint and cover all its commits.
+     */
+    RevWalk createAllRevsWalk(Repository repository, String branch, int shardIndex, int shardCount) throws Exception;
+
     Iterable<RevCommit> createRevsWalkBetweenTags(Repository repository, String startTag, String endTag) throws Exception;
 
     Iterable<RevCommit> createRevsWalkBetweenCommits(Repository repository, String startCommitId, String endCommitId) throws Exception;
 
+    Iterable<RevCommit> createRevsWalkBetweenCommits(Repository repository, String startCommitId, String endCommitId, int shardIndex, int shardCount) throws Exception;
+
     void fileTreeDiff(Repository repository, RevCommit currentCommit, List<String> filesBefore, List<String> filesCurrent, Map<String, String> renamedFilesHint) throws Exception;
 
     Churn churn(Repository repository, RevCommit currentCommit) throws Exception;
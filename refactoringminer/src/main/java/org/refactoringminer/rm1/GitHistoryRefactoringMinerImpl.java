@@ -1,6 +1,7 @@
 package org.refactoringminer.rm1;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.uom.java.xmi.PsiFileCache;
 import gr.uom.java.xmi.UMLModel;
 import gr.uom.java.xmi.UMLModelASTReader;
 import gr.uom.java.xmi.diff.MoveSourceFolderRefactoring;
@@ -10,13 +11,16 @@ import gr.uom.java.xmi.diff.UMLModelDiff;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.kohsuke.github.GHCommit;
 import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHPullRequestCommitDetail;
@@ -27,13 +31,18 @@ import org.kohsuke.github.GHTreeEntry;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.PagedIterable;
 import org.refactoringminer.api.Churn;
+import org.refactoringminer.api.CommitMetrics;
 import org.refactoringminer.api.GitHistoryRefactoringMiner;
 import org.refactoringminer.api.GitService;
 import org.refactoringminer.api.Refactoring;
 import org.refactoringminer.api.RefactoringHandler;
 import org.refactoringminer.api.RefactoringMinerTimedOutException;
 import org.refactoringminer.api.RefactoringType;
+import org.refactoringminer.util.AnalysisBudget;
+import org.refactoringminer.util.CommitResultStore;
 import org.refactoringminer.util.GitServiceImpl;
+import org.refactoringminer.util.MetricsRecorder;
+import org.refactoringminer.util.MetricsRecorder.Phase;
 import org.refactoringminer.util.RefactoringTypeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,11 +53,18 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -63,9 +79,11 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -75,9 +93,34 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
     private static final String systemFileSeparator = Matcher.quoteReplacement(File.separator);
     private static final String GITHUB_URL = "https://github.com/";
     private static final String BITBUCKET_URL = "https://bitbucket.org/";
+    private static final int DEFAULT_PARSED_FILE_CACHE_SIZE = 500;
+    //the share of the timeout of detectAtCommit given to the analysis, so that a partial result is handled in time
+    private static final double TIMEOUT_BUDGET_SHARE = 0.75;
+    private static final ExecutorService timedDetections = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "RefactoringMiner-detectAtCommit");
+        thread.setDaemon(true);
+        return thread;
+    });
     final Logger logger = LoggerFactory.getLogger(GitHistoryRefactoringMinerImpl.class);
     private Set<RefactoringType> refactoringTypesToConsider = null;
     private GitHub gitHub;
+    private int parallelism = 1;
+    private PsiFileCache psiFileCache = new PsiFileCache(DEFAULT_PARSED_FILE_CACHE_SIZE);
+    private ForkJoinPool parsingPool = null;
+    private ForkJoinPool classDiffPool = null;
+    private boolean operationMovePrefilter = true;
+    private final AtomicLong skippedOperationMoveMappers = new AtomicLong();
+    private final RepositoryDirectories repositoryDirectories = new RepositoryDirectories();
+    private boolean metricsEnabled = false;
+    private Path metricsOutput = null;
+    private CommitResultStore resultStore = null;
+    private int shardIndex = 0;
+    private int shardCount = 1;
+    private int commitTimeout = 0;
+    private long walkDeadline = 0;
+    private volatile boolean walkStopped = false;
+    //whether a commit of the walk was analyzed without storing its result, so that it is analyzed again
+    private volatile boolean resultNotStored = false;
 
     public GitHistoryRefactoringMinerImpl() {
         this.setRefactoringTypesToConsider(RefactoringTypeUtils.ALL);
@@ -88,6 +131,183 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
         this.refactoringTypesToConsider.addAll(Arrays.asList(types));
     }
 
+    /**
+     * Set the number of commits analyzed at the same time when walking a history with
+     * {@code detectAll}, {@code detectBetweenTags}, {@code detectBetweenCommits} or {@code fetchAndDetectNew}.
+     * The handler is still notified in walk order and from the calling thread.
+     *
+     * @param parallelism The number of worker threads; 1 (the default) analyzes one commit at a time.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Set the number of threads used to parse the changed files of a single commit.
+     * Commits that touch many files (e.g. mass renames or reformatting) benefit the most.
+     *
+     * @param parallelism The number of parsing threads; 1 (the default) parses one file at a time.
+     */
+    public void setParsingParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parsing parallelism must be at least 1, but was " + parallelism);
+        }
+        if (parsingPool != null) {
+            parsingPool.shutdown();
+        }
+        this.parsingPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Set the number of threads used to process the class diffs of a single commit. The processing that is local
+     * to a class (e.g. the matching of the operation bodies) is done concurrently, while the detection across classes
+     * (e.g. moved operations) is done afterwards. Commits that change many classes benefit the most.
+     *
+     * @param parallelism The number of class diff threads; 1 (the default) processes one class at a time.
+     */
+    public void setClassDiffParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Class diff parallelism must be at least 1, but was " + parallelism);
+        }
+        if (classDiffPool != null) {
+            classDiffPool.shutdown();
+        }
+        this.classDiffPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Set the number of parsed file versions, keyed by git blob id, that are kept for reuse when
+     * the same version of a file is part of the next analyzed commit.
+     *
+     * @param size The maximum number of cached files; 0 disables the cache.
+     */
+    public void setParsedFileCacheSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative, but was " + size);
+        }
+        this.psiFileCache.setMaxSize(size);
+    }
+
+    /**
+     * Use the given cache of parsed file versions instead of the cache of this miner. Since the files are keyed by
+     * git blob id, which identifies their contents, one cache can be shared by the miners of several repositories.
+     */
+    public void setParsedFileCache(PsiFileCache psiFileCache) {
+        this.psiFileCache = psiFileCache;
+    }
+
+    /**
+     * Enable or disable the check that skips, before any statement matching, the pairs of removed and added
+     * operations that cannot be reported as moved operations.
+     *
+     * @param operationMovePrefilter {@code true} (the default) to skip such pairs.
+     */
+    public void setOperationMovePrefilter(boolean operationMovePrefilter) {
+        this.operationMovePrefilter = operationMovePrefilter;
+    }
+
+    /**
+     * @return The number of operation body comparisons avoided by the operation move check since this miner was created.
+     */
+    public long getSkippedOperationMoveMappers() {
+        return skippedOperationMoveMappers.get();
+    }
+
+    /**
+     * Enable or disable the collection of per-commit metrics (phase durations and counters), which are passed to
+     * {@link RefactoringHandler#handleMetrics} for every commit analyzed from a git repository.
+     *
+     * @param metricsEnabled {@code false} (the default) to skip the collection.
+     */
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    /**
+     * Enable the collection of per-commit metrics and append them as JSON lines to the given file.
+     *
+     * @param metricsOutput The file to append to, or null to stop writing metrics.
+     */
+    public void setMetricsOutput(Path metricsOutput) {
+        this.metricsOutput = metricsOutput;
+        if (metricsOutput != null) {
+            this.metricsEnabled = true;
+        }
+    }
+
+    /**
+     * Set the time budget of the analysis of every commit. Once it is exhausted, the optional phases of the
+     * analysis are skipped and the refactorings found so far are passed to the handler as a partial result,
+     * after {@link RefactoringHandler#handlePartialResult}.
+     *
+     * @param commitTimeout The budget in seconds; 0 (the default) for no limit.
+     */
+    public void setCommitTimeout(int commitTimeout) {
+        if (commitTimeout < 0) {
+            throw new IllegalArgumentException("Commit timeout must not be negative, but was " + commitTimeout);
+        }
+        this.commitTimeout = commitTimeout;
+    }
+
+    /**
+     * Set the time at which a history walk stops. The commits that are not started by then are not analyzed, and the
+     * budget of every commit is bounded by the time left, so that the commit being analyzed yields a partial result
+     * at the deadline instead of running past it.
+     *
+     * @param walkDeadline The deadline in milliseconds since the epoch, as returned by {@link System#currentTimeMillis()};
+     *                     0 (the default) for no deadline.
+     */
+    public void setWalkDeadline(long walkDeadline) {
+        this.walkDeadline = walkDeadline;
+    }
+
+    /**
+     * @return Whether the last history walk stopped before its end, at the deadline or because its thread was interrupted.
+     */
+    public boolean isWalkStopped() {
+        return walkStopped;
+    }
+
+    /**
+     * Analyze only one shard of the commits walked by {@code detectAll} and {@code detectBetweenCommits}, so that
+     * a history can be split across machines. The shards have a similar estimated cost, are computed the same way
+     * on every machine, and together cover all the commits.
+     *
+     * @param shardIndex The shard to analyze, from 0 to {@code shardCount - 1}.
+     * @param shardCount The number of shards; 1 (the default) analyzes all the commits.
+     */
+    public void setShard(int shardIndex, int shardCount) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException(String.format("Invalid shard %d of %d", shardIndex, shardCount));
+        }
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Set the store in which the result of every analyzed commit is recorded. Commits that already have a result
+     * in the store are skipped when walking a history, so an interrupted run can be resumed, and
+     * {@code fetchAndDetectNew} analyzes the commits fetched since the last completed run. The commits whose
+     * analysis timed out, was interrupted or could not read the repository, and the partial results, are not
+     * recorded, so the next run analyzes these commits again.
+     *
+     * @param resultStore The store, or null (the default) to analyze every commit.
+     */
+    public void setResultStore(CommitResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+    /**
+     * @return The key of the repository in the result store: the URL of the origin remote, or the path of the repository.
+     */
+    public static String repositoryId(Repository repository) {
+        String cloneURL = repository.getConfig().getString("remote", "origin", "url");
+        return cloneURL != null ? cloneURL : repository.getDirectory().getAbsolutePath();
+    }
+
     public static String extractCommitURL(String cloneURL, String commitId) {
         int indexOfDotGit = cloneURL.length();
         if (cloneURL.endsWith(".git")) {
@@ -113,7 +333,9 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
                 return handler.skipCommit(sha1);
             }
         };
-        RevWalk walk = gitService.createAllRevsWalk(repository, branch);
+        RevWalk walk = shardCount > 1 ?
+            gitService.createAllRevsWalk(repository, branch, shardIndex, shardCount) :
+            gitService.createAllRevsWalk(repository, branch);
         try {
             detect(gitService, repository, handler, walk.iterator());
         } finally {
@@ -122,6 +344,10 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
     }
 
     private void detect(GitService gitService, Repository repository, final RefactoringHandler handler, Iterator<RevCommit> i) {
+        if (parallelism > 1) {
+            detectInParallel(gitService, repository, handler, i);
+            return;
+        }
         int commitsCount = 0;
         int errorCommitsCount = 0;
         int refactoringsCount = 0;
@@ -131,14 +357,27 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
         String projectName = projectFolder.getName();
 
         long time = System.currentTimeMillis();
+        walkStopped = false;
+        resultNotStored = false;
         while (i.hasNext()) {
+            if (stopWalk(projectName)) {
+                break;
+            }
             RevCommit currentCommit = i.next();
+            if (isStored(repository, currentCommit.getId().getName())) {
+                continue;
+            }
             try {
                 List<Refactoring> refactoringsAtRevision = detectRefactorings(gitService, repository, handler, projectFolder, currentCommit);
                 refactoringsCount += refactoringsAtRevision.size();
 
             } catch (Exception e) {
+                if (e instanceof RefactoringMinerTimedOutException && stopWalk(projectName)) {
+                    //the commit was stopped together with the walk, it is neither an error nor analyzed
+                    break;
+                }
                 logger.warn(String.format("Ignored revision %s due to error", currentCommit.getId().getName()), e);
+                storeError(repository, currentCommit.getId().getName(), e);
                 handler.handleException(currentCommit.getId().getName(), e);
                 errorCommitsCount++;
             }
@@ -153,46 +392,279 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 
         handler.onFinish(refactoringsCount, commitsCount, errorCommitsCount);
         logger.info(String.format("Analyzed %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, commitsCount, errorCommitsCount, refactoringsCount));
+        if (operationMovePrefilter) {
+            logger.info(String.format("Skipped %d operation body comparisons when checking for moved operations", skippedOperationMoveMappers.get()));
+        }
+    }
+
+    /**
+     * Analyzes independent commits on a pool of {@code parallelism} workers. Commits are taken from the walk
+     * on the calling thread, which also delivers the results to the handler in walk order. At most two commits
+     * per worker are in flight at any time, so long histories are never materialized in memory.
+     */
+    private void detectInParallel(GitService gitService, Repository repository, final RefactoringHandler handler, Iterator<RevCommit> i) {
+        int commitsCount = 0;
+        int errorCommitsCount = 0;
+        int refactoringsCount = 0;
+
+        File metadataFolder = repository.getDirectory();
+        File projectFolder = metadataFolder.getParentFile();
+        String projectName = projectFolder.getName();
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        Deque<Map.Entry<String, Future<CommitResult>>> pending = new ArrayDeque<>();
+        long time = System.currentTimeMillis();
+        walkStopped = false;
+        resultNotStored = false;
+        try {
+            while (i.hasNext() || !pending.isEmpty()) {
+                if (i.hasNext() && !walkStopped && !stopWalk(projectName) && pending.size() < 2 * parallelism) {
+                    RevCommit currentCommit = i.next();
+                    if (isStored(repository, currentCommit.getId().getName())) {
+                        continue;
+                    }
+                    Future<CommitResult> f = pool.submit(() -> analyzeCommit(gitService, repository, currentCommit));
+                    pending.addLast(new AbstractMap.SimpleEntry<>(currentCommit.getId().getName(), f));
+                    continue;
+                }
+                if (pending.isEmpty()) {
+                    //the walk stopped, the commits in flight were delivered
+                    break;
+                }
+                Map.Entry<String, Future<CommitResult>> head = pending.removeFirst();
+                String commitId = head.getKey();
+                try {
+                    List<Refactoring> refactoringsAtRevision = handle(handler, repository, commitId, head.getValue().get());
+                    refactoringsCount += refactoringsAtRevision.size();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logger.warn(String.format("Interrupted while analyzing %s", projectName), e);
+                    walkStopped = true;
+                    break;
+                } catch (Exception e) {
+                    Exception cause = e instanceof ExecutionException && e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    if (cause instanceof RefactoringMinerTimedOutException && stopWalk(projectName)) {
+                        break;
+                    }
+                    logger.warn(String.format("Ignored revision %s due to error", commitId), cause);
+                    storeError(repository, commitId, cause);
+                    handler.handleException(commitId, cause);
+                    errorCommitsCount++;
+                }
+
+                commitsCount++;
+                long time2 = System.currentTimeMillis();
+                if ((time2 - time) > 20000) {
+                    time = time2;
+                    logger.info(String.format("Processing %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, commitsCount, errorCommitsCount, refactoringsCount));
+                }
+            }
+        } finally {
+            for (Map.Entry<String, Future<CommitResult>> entry : pending) {
+                entry.getValue().cancel(true);
+            }
+            pool.shutdownNow();
+        }
+
+        handler.onFinish(refactoringsCount, commitsCount, errorCommitsCount);
+        logger.info(String.format("Analyzed %s [Commits: %d, Errors: %d, Refactorings: %d]", projectName, commitsCount, errorCommitsCount, refactoringsCount));
+        if (operationMovePrefilter) {
+            logger.info(String.format("Skipped %d operation body comparisons when checking for moved operations", skippedOperationMoveMappers.get()));
+        }
+    }
+
+    /**
+     * @return Whether the walk should stop before the next commit, because its deadline passed or its thread was
+     * interrupted; in which case the walk is recorded as stopped.
+     */
+    private boolean stopWalk(String projectName) {
+        if (Thread.currentThread().isInterrupted()) {
+            logger.warn(String.format("Interrupted while analyzing %s", projectName));
+        } else if (walkDeadline > 0 && System.currentTimeMillis() >= walkDeadline) {
+            logger.warn(String.format("Deadline reached while analyzing %s", projectName));
+        } else {
+            return false;
+        }
+        walkStopped = true;
+        return true;
     }
 
     protected List<Refactoring> detectRefactorings(GitService gitService, Repository repository, final RefactoringHandler handler, File projectFolder, RevCommit currentCommit) throws Exception {
+        return handle(handler, repository, currentCommit.getId().getName(), analyzeCommit(gitService, repository, currentCommit));
+    }
+
+    private static class CommitResult {
+        private final List<Refactoring> refactorings;
+        private final CommitMetrics metrics;
+        private final List<String> skippedPhases;
+
+        private CommitResult(List<Refactoring> refactorings, CommitMetrics metrics, List<String> skippedPhases) {
+            this.refactorings = refactorings;
+            this.metrics = metrics;
+            this.skippedPhases = skippedPhases;
+        }
+    }
+
+    private CommitResult analyzeCommit(GitService gitService, Repository repository, RevCommit currentCommit) throws Exception {
+        //the budget of detectAtCommit with a timeout, or the budget of every commit of this miner
+        AnalysisBudget budget = AnalysisBudget.current();
+        long timeoutMillis = commitBudgetMillis();
+        boolean ownBudget = budget == null && timeoutMillis > 0;
+        if (ownBudget) {
+            budget = AnalysisBudget.start(timeoutMillis);
+        }
+        MetricsRecorder recorder = metricsEnabled ? MetricsRecorder.start() : null;
+        try {
+            List<Refactoring> refactoringsAtRevision = computeRefactorings(gitService, repository, currentCommit);
+            return new CommitResult(refactoringsAtRevision, recorder != null ? recorder.getMetrics() : null,
+                budget != null && budget.isPartial() ? budget.getSkippedPhases() : null);
+        } catch (RefactoringMinerTimedOutException e) {
+            //the mappers clear the interrupt they stop at, restore it unless it is the last resort of the budget
+            if (budget == null || !budget.isExhausted()) {
+                Thread.currentThread().interrupt();
+            }
+            throw e;
+        } finally {
+            if (recorder != null) {
+                recorder.stop();
+            }
+            if (ownBudget) {
+                budget.stop();
+            }
+        }
+    }
+
+    /**
+     * @return The budget of a commit started now: the commit timeout, bounded by the time left before the walk
+     * deadline, or 0 for no limit.
+     */
+    private long commitBudgetMillis() {
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(commitTimeout);
+        if (walkDeadline > 0) {
+            long timeLeft = Math.max(1, walkDeadline - System.currentTimeMillis());
+            timeoutMillis = timeoutMillis > 0 ? Math.min(timeoutMillis, timeLeft) : timeLeft;
+        }
+        return timeoutMillis;
+    }
+
+    private List<Refactoring> handle(RefactoringHandler handler, Repository repository, String commitId, CommitResult result) {
+        if (result.skippedPhases != null) {
+            handler.handlePartialResult(commitId, result.skippedPhases);
+        }
+        handler.handle(commitId, result.refactorings);
+        if (resultStore != null && result.skippedPhases != null) {
+            //a partial result may be completed by a later run with more time
+            resultNotStored = true;
+        } else if (resultStore != null) {
+            try {
+                resultStore.put(repositoryId(repository), commitId, result.refactorings);
+            } catch (IOException e) {
+                logger.warn(String.format("Could not store the result of %s", commitId), e);
+            }
+        }
+        if (result.metrics != null) {
+            handler.handleMetrics(commitId, result.metrics);
+            if (metricsOutput != null) {
+                try {
+                    Files.writeString(metricsOutput, result.metrics.toJSON(commitId) + System.lineSeparator(),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } catch (IOException e) {
+                    logger.warn(String.format("Could not write the metrics of %s to %s", commitId, metricsOutput), e);
+                }
+            }
+        }
+        return result.refactorings;
+    }
+
+    private static void handlePartialResult(RefactoringHandler handler, String commitId) {
+        AnalysisBudget budget = AnalysisBudget.current();
+        if (budget != null && budget.isPartial()) {
+            handler.handlePartialResult(commitId, budget.getSkippedPhases());
+        }
+    }
+
+    private boolean isStored(Repository repository, String commitId) {
+        return resultStore != null && resultStore.contains(repositoryId(repository), commitId);
+    }
+
+    private void storeError(Repository repository, String commitId, Exception e) {
+        if (resultStore != null && isTransient(e)) {
+            resultNotStored = true;
+        } else if (resultStore != null) {
+            try {
+                resultStore.putError(repositoryId(repository), commitId, e);
+            } catch (IOException ioe) {
+                logger.warn(String.format("Could not store the error of %s", commitId), ioe);
+            }
+        }
+    }
+
+    /**
+     * @return Whether the error may not happen when the commit is analyzed again: the analysis was interrupted or
+     * timed out, or the repository could not be read.
+     */
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RefactoringMinerTimedOutException || cause instanceof InterruptedException ||
+                cause instanceof IOException || cause instanceof UncheckedIOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Refactoring> computeRefactorings(GitService gitService, Repository repository, RevCommit currentCommit) throws Exception {
         List<Refactoring> refactoringsAtRevision;
-        String commitId = currentCommit.getId().getName();
         List<String> filePathsBefore = new ArrayList<>();
         List<String> filePathsCurrent = new ArrayList<>();
         Map<String, String> renamedFilesHint = new HashMap<>();
         gitService.fileTreeDiff(repository, currentCommit, filePathsBefore, filePathsCurrent, renamedFilesHint);
 
-        Set<String> repositoryDirectoriesBefore = new LinkedHashSet<>();
-        Set<String> repositoryDirectoriesCurrent = new LinkedHashSet<>();
         Map<String, String> fileContentsBefore = new LinkedHashMap<>();
         Map<String, String> fileContentsCurrent = new LinkedHashMap<>();
-        try (RevWalk walk = new RevWalk(repository)) {
+        Map<String, String> fileBlobIdsBefore = new HashMap<>();
+        Map<String, String> fileBlobIdsCurrent = new HashMap<>();
+        try (ObjectReader reader = repository.newObjectReader()) {
             // If no java files changed, there is no refactoring. Also, if there are
             // only ADD's or only REMOVE's there is no refactoring
             if (!filePathsBefore.isEmpty() && !filePathsCurrent.isEmpty() && currentCommit.getParentCount() > 0) {
                 RevCommit parentCommit = currentCommit.getParent(0);
-                populateFileContents(repository, parentCommit, filePathsBefore, fileContentsBefore, repositoryDirectoriesBefore);
-                populateFileContents(repository, currentCommit, filePathsCurrent, fileContentsCurrent, repositoryDirectoriesCurrent);
+                long start = MetricsRecorder.startPhase(Phase.POPULATE_FILE_CONTENTS);
+                logger.info("Processing {} {} ...", repository.getDirectory().getParent(), currentCommit.getName());
+                populateFileContents(reader, parentCommit, filePathsBefore, fileContentsBefore, fileBlobIdsBefore);
+                populateFileContents(reader, currentCommit, filePathsCurrent, fileContentsCurrent, fileBlobIdsCurrent);
+                Set<String> repositoryDirectoriesBefore = repositoryDirectories.get(repository, reader, parentCommit.getTree());
+                Set<String> repositoryDirectoriesCurrent = repositoryDirectories.get(repository, reader, currentCommit.getTree());
+                MetricsRecorder.endPhase(Phase.POPULATE_FILE_CONTENTS, start);
                 List<MoveSourceFolderRefactoring> moveSourceFolderRefactorings = processIdenticalFiles(fileContentsBefore, fileContentsCurrent, renamedFilesHint);
-                UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
-                UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
+                start = MetricsRecorder.startPhase(Phase.PARSING);
+                UMLModel parentUMLModel = createModel(fileContentsBefore, fileBlobIdsBefore, repositoryDirectoriesBefore);
+                UMLModel currentUMLModel = createModel(fileContentsCurrent, fileBlobIdsCurrent, repositoryDirectoriesCurrent);
+                MetricsRecorder.endPhase(Phase.PARSING, start);
 
-                UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, renamedFilesHint);
-                refactoringsAtRevision = modelDiff.getRefactorings();
+                refactoringsAtRevision = getRefactorings(parentUMLModel, currentUMLModel, renamedFilesHint);
                 refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
                 refactoringsAtRevision = filter(refactoringsAtRevision);
             } else {
                 //logger.info(String.format("Ignored revision %s with no changes in java files", commitId));
                 refactoringsAtRevision = Collections.emptyList();
             }
-            handler.handle(commitId, refactoringsAtRevision);
-
-            walk.dispose();
         }
         return refactoringsAtRevision;
     }
 
+    private List<Refactoring> getRefactorings(UMLModel parentUMLModel, UMLModel currentUMLModel, Map<String, String> renamedFilesHint) throws RefactoringMinerTimedOutException {
+        long start = MetricsRecorder.startPhase(Phase.MODEL_DIFF);
+        UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, renamedFilesHint, classDiffPool);
+        MetricsRecorder.endPhase(Phase.MODEL_DIFF, start);
+        modelDiff.setOperationMovePrefilter(operationMovePrefilter);
+        start = MetricsRecorder.startPhase(Phase.GET_REFACTORINGS);
+        List<Refactoring> refactorings = modelDiff.getRefactorings();
+        MetricsRecorder.endPhase(Phase.GET_REFACTORINGS, start);
+        skippedOperationMoveMappers.addAndGet(modelDiff.getSkippedOperationMoveMappers());
+        return refactorings;
+    }
+
     private List<MoveSourceFolderRefactoring> processIdenticalFiles(Map<String, String> fileContentsBefore, Map<String, String> fileContentsCurrent, Map<String, String> renamedFilesHint) {
         Map<String, String> identicalFiles = new HashMap<>();
         for (String key : fileContentsBefore.keySet()) {
@@ -248,36 +720,37 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
         return moveSourceFolderRefactorings;
     }
 
-    private void populateFileContents(Repository repository, RevCommit commit,
-                                      List<String> filePaths, Map<String, String> fileContents, Set<String> repositoryDirectories) throws Exception {
-        logger.info("Processing {} {} ...", repository.getDirectory().getParent(), commit.getName());
-        RevTree parentTree = commit.getTree();
-        try (TreeWalk treeWalk = new TreeWalk(repository)) {
-            treeWalk.addTree(parentTree);
+    /**
+     * Read the contents of the given files of a commit. Only the trees on the paths of the files are walked.
+     */
+    private void populateFileContents(ObjectReader reader, RevCommit commit, List<String> filePaths,
+                                      Map<String, String> fileContents, Map<String, String> fileBlobIds) throws IOException {
+        Set<String> paths = new HashSet<>(filePaths);
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.addTree(commit.getTree());
             treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathFilterGroup.createFromStrings(paths));
             while (treeWalk.next()) {
                 String pathString = treeWalk.getPathString();
-                if (filePaths.contains(pathString)) {
+                if (paths.contains(pathString)) {
                     ObjectId objectId = treeWalk.getObjectId(0);
-                    ObjectLoader loader = repository.open(objectId);
-                    StringWriter writer = new StringWriter();
-                    IOUtils.copy(loader.openStream(), writer);
-                    fileContents.put(pathString, writer.toString());
-                }
-                if (pathString.endsWith(".java") && pathString.contains("/")) {
-                    String directory = pathString.substring(0, pathString.lastIndexOf("/"));
-                    repositoryDirectories.add(directory);
-                    //include sub-directories
-                    String subDirectory = directory;
-                    while (subDirectory.contains("/")) {
-                        subDirectory = subDirectory.substring(0, subDirectory.lastIndexOf("/"));
-                        repositoryDirectories.add(subDirectory);
-                    }
+                    fileContents.put(pathString, readBlob(reader, objectId));
+                    fileBlobIds.put(pathString, objectId.getName());
                 }
             }
         }
     }
 
+    private static String readBlob(ObjectReader reader, ObjectId objectId) throws IOException {
+        ObjectLoader loader = reader.open(objectId, Constants.OBJ_BLOB);
+        if (loader.isLarge()) {
+            try (InputStream stream = loader.openStream()) {
+                return IOUtils.toString(stream, Charset.defaultCharset());
+            }
+        }
+        return new String(loader.getCachedBytes(), Charset.defaultCharset());
+    }
+
     protected List<Refactoring> filter(List<Refactoring> refactoringsAtRevision) {
         if (this.refactoringTypesToConsider == null) {
             return refactoringsAtRevision;
@@ -292,7 +765,11 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
     }
 
     protected UMLModel createModel(Map<String, String> fileContents, Set<String> repositoryDirectories) throws Exception {
-        return new UMLModelASTReader(fileContents, repositoryDirectories).getUmlModel();
+        return new UMLModelASTReader(fileContents, Collections.emptyMap(), repositoryDirectories, null, parsingPool).getUmlModel();
+    }
+
+    protected UMLModel createModel(Map<String, String> fileContents, Map<String, String> fileBlobIds, Set<String> repositoryDirectories) throws Exception {
+        return new UMLModelASTReader(fileContents, fileBlobIds, repositoryDirectories, psiFileCache, parsingPool).getUmlModel();
     }
 
     @Override
@@ -303,27 +780,73 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
                 return handler.skipCommit(sha1);
             }
         };
-        RevWalk walk = gitService.fetchAndCreateNewRevsWalk(repository);
+        if (resultStore == null) {
+            RevWalk walk = gitService.fetchAndCreateNewRevsWalk(repository);
+            try {
+                detect(gitService, repository, handler, walk.iterator());
+            } finally {
+                walk.dispose();
+            }
+            return;
+        }
+        String repositoryId = repositoryId(repository);
+        List<String> analyzedHeads = resultStore.getHeads(repositoryId);
+        if (analyzedHeads.isEmpty()) {
+            //as without a store, the commits fetched before the first run are not analyzed
+            analyzedHeads = remoteHeads(repository);
+            resultStore.putHeads(repositoryId, analyzedHeads);
+        }
+        RevWalk walk = gitService.fetchAndCreateNewRevsWalk(repository, null, analyzedHeads);
         try {
             detect(gitService, repository, handler, walk.iterator());
         } finally {
             walk.dispose();
         }
+        //the commits without a stored result are analyzed again by the next walk from the same heads
+        if (!walkStopped && !resultNotStored) {
+            resultStore.putHeads(repositoryId, remoteHeads(repository));
+        }
+    }
+
+    private static List<String> remoteHeads(Repository repository) throws IOException {
+        List<String> heads = new ArrayList<>();
+        for (Ref ref : repository.getRefDatabase().getRefsByPrefix(GitServiceImpl.REMOTE_REFS_PREFIX)) {
+            if (ref.getObjectId() != null) {
+                heads.add(ref.getObjectId().getName());
+            }
+        }
+        return heads;
     }
 
+    /**
+     * Detect the refactorings of the commit, returning at the latest when {@code timeout} seconds have elapsed.
+     * The analysis has a budget of three quarters of the timeout, after which the refactorings found so far are
+     * passed to the handler as a partial result. An analysis still running at the timeout is interrupted and its
+     * refactorings are not passed to the handler.
+     */
     public void detectAtCommit(Repository repository, String commitId, RefactoringHandler handler, int timeout) {
-        ExecutorService service = Executors.newSingleThreadExecutor();
-        Future<?> f = null;
+        detectWithTimeout(() -> detectAtCommit(repository, commitId, handler), timeout);
+    }
+
+    private static void detectWithTimeout(Runnable detection, int timeout) {
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(timeout);
+        Future<?> f = timedDetections.submit(() -> {
+            AnalysisBudget budget = AnalysisBudget.start((long) (timeoutMillis * TIMEOUT_BUDGET_SHARE));
+            try {
+                detection.run();
+            } finally {
+                budget.stop();
+            }
+        });
         try {
-            Runnable r = () -> detectAtCommit(repository, commitId, handler);
-            f = service.submit(r);
-            f.get(timeout, TimeUnit.SECONDS);
+            f.get(timeoutMillis, TimeUnit.MILLISECONDS);
         } catch (TimeoutException e) {
             f.cancel(true);
-        } catch (ExecutionException | InterruptedException e) {
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
             e.printStackTrace();
-        } finally {
-            service.shutdown();
         }
     }
 
@@ -382,8 +905,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
                 UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
                 UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
                 // Diff between currentModel e parentModel
-                UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, renamedFilesHint);
-                refactoringsAtRevision = modelDiff.getRefactorings();
+                refactoringsAtRevision = getRefactorings(parentUMLModel, currentUMLModel, renamedFilesHint);
                 refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
                 refactoringsAtRevision = filter(refactoringsAtRevision);
             } else {
@@ -393,6 +915,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
             logger.warn(String.format("Ignored revision %s due to error", currentCommitId), e);
             handler.handleException(currentCommitId, e);
         }
+        handlePartialResult(handler, currentCommitId);
         handler.handle(currentCommitId, refactoringsAtRevision);
 
         return refactoringsAtRevision;
@@ -574,7 +1097,9 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
             }
         };
 
-        Iterable<RevCommit> walk = gitService.createRevsWalkBetweenCommits(repository, startCommitId, endCommitId);
+        Iterable<RevCommit> walk = shardCount > 1 ?
+            gitService.createRevsWalkBetweenCommits(repository, startCommitId, endCommitId, shardIndex, shardCount) :
+            gitService.createRevsWalkBetweenCommits(repository, startCommitId, endCommitId);
         detect(gitService, repository, handler, walk.iterator());
     }
 
@@ -624,19 +1149,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
 
     @Override
     public void detectAtCommit(String gitURL, String commitId, RefactoringHandler handler, int timeout) {
-        ExecutorService service = Executors.newSingleThreadExecutor();
-        Future<?> f = null;
-        try {
-            Runnable r = () -> detectRefactorings(handler, gitURL, commitId);
-            f = service.submit(r);
-            f.get(timeout, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            f.cancel(true);
-        } catch (ExecutionException | InterruptedException e) {
-            e.printStackTrace();
-        } finally {
-            service.shutdown();
-        }
+        detectWithTimeout(() -> detectRefactorings(handler, gitURL, commitId), timeout);
     }
 
     protected List<Refactoring> detectRefactorings(final RefactoringHandler handler, String gitURL, String currentCommitId) {
@@ -652,8 +1165,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
             UMLModel currentUMLModel = createModel(fileContentsCurrent, repositoryDirectoriesCurrent);
             UMLModel parentUMLModel = createModel(fileContentsBefore, repositoryDirectoriesBefore);
             //  Diff between currentModel e parentModel
-            UMLModelDiff modelDiff = parentUMLModel.diff(currentUMLModel, renamedFilesHint);
-            refactoringsAtRevision = modelDiff.getRefactorings();
+            refactoringsAtRevision = getRefactorings(parentUMLModel, currentUMLModel, renamedFilesHint);
             refactoringsAtRevision.addAll(moveSourceFolderRefactorings);
             refactoringsAtRevision = filter(refactoringsAtRevision);
         } catch (RefactoringMinerTimedOutException e) {
@@ -663,6 +1175,7 @@ public class GitHistoryRefactoringMinerImpl implements GitHistoryRefactoringMine
             logger.warn(String.format("Ignored revision %s due to error", currentCommitId), e);
             handler.handleException(currentCommitId, e);
         }
+        handlePartialResult(handler, currentCommitId);
         handler.handle(currentCommitId, refactoringsAtRevision);
 
         return refactoringsAtRevision;
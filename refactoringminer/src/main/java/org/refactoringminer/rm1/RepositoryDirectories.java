@@ -0,0 +1,94 @@
+package org.refactoringminer.rm1;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The directories (and their parent directories) containing java files in the trees of a repository.
+ * <p>
+ * The whole tree is walked only for the first commit. The directories of the next trees are derived from the
+ * last computed tree through the java files that differ between the two trees, which are few for the commits
+ * of a walk. The directories of the most recent trees are kept, as the parent of a commit is usually the next
+ * commit of the walk.
+ */
+class RepositoryDirectories {
+    private static final int CACHED_TREES = 4;
+    private final Map<ObjectId, Set<String>> cachedDirectories = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ObjectId, Set<String>> eldest) {
+            return size() > CACHED_TREES;
+        }
+    };
+    //number of java files in each directory, including its sub-directories
+    private final Map<String, Integer> javaFileCounts = new HashMap<>();
+    private Repository repository;
+    private ObjectId lastTree;
+
+    synchronized Set<String> get(Repository repository, ObjectReader reader, RevTree tree) throws IOException {
+        if (this.repository != repository) {
+            reset();
+            this.repository = repository;
+        }
+        Set<String> directories = cachedDirectories.get(tree);
+        if (directories != null) {
+            return directories;
+        }
+        try (TreeWalk treeWalk = new TreeWalk(reader)) {
+            treeWalk.setRecursive(true);
+            if (lastTree == null) {
+                treeWalk.addTree(tree);
+                treeWalk.setFilter(PathSuffixFilter.create(".java"));
+                while (treeWalk.next()) {
+                    update(treeWalk.getPathString(), 1);
+                }
+            } else {
+                treeWalk.addTree(lastTree);
+                treeWalk.addTree(tree);
+                treeWalk.setFilter(AndTreeFilter.create(PathSuffixFilter.create(".java"), TreeFilter.ANY_DIFF));
+                while (treeWalk.next()) {
+                    boolean before = treeWalk.getRawMode(0) != 0;
+                    boolean after = treeWalk.getRawMode(1) != 0;
+                    if (before && !after) {
+                        update(treeWalk.getPathString(), -1);
+                    } else if (!before && after) {
+                        update(treeWalk.getPathString(), 1);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            reset();
+            throw e;
+        }
+        lastTree = tree.copy();
+        directories = Collections.unmodifiableSet(new HashSet<>(javaFileCounts.keySet()));
+        cachedDirectories.put(lastTree, directories);
+        return directories;
+    }
+
+    private void update(String pathString, int delta) {
+        String directory = pathString;
+        while (directory.contains("/")) {
+            directory = directory.substring(0, directory.lastIndexOf("/"));
+            javaFileCounts.merge(directory, delta, (count, d) -> count + d == 0 ? null : count + d);
+        }
+    }
+
+    private void reset() {
+        cachedDirectories.clear();
+        javaFileCounts.clear();
+        lastTree = null;
+    }
+}
@@ -0,0 +1,159 @@
+package org.refactoringminer.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The time budget of the analysis of a commit on the thread that analyzes it.
+ * <p>
+ * Once the budget is exhausted, the detection code skips its optional phases (e.g. the search for moved, extracted
+ * and inlined operations) and the statement replacements it has not searched yet, so that the refactorings found so
+ * far are returned as a partial result instead of losing the commit. As a last resort for code that does not check
+ * the budget, the thread is interrupted when twice the budget has elapsed, together with the threads doing work
+ * on its behalf (see {@link #callWith}). The interrupts of all budgets are scheduled on one shared thread.
+ * <p>
+ * Like {@link MetricsRecorder}, the static methods do nothing unless a budget is started on the current thread, and
+ * only read a volatile counter while no budget is started anywhere.
+ */
+public class AnalysisBudget {
+    private static final AtomicInteger activeBudgets = new AtomicInteger();
+    private static final ThreadLocal<AnalysisBudget> currentBudget = new ThreadLocal<>();
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "RefactoringMiner-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long deadline;
+    private final ScheduledFuture<?> interrupt;
+    private final Set<String> skippedPhases = new LinkedHashSet<>();
+    private volatile boolean exhausted = false;
+    //the threads running work on behalf of the budget, and whether they were interrupted, guarded by helpers
+    private final Set<Thread> helpers = new HashSet<>();
+    private boolean interrupted = false;
+
+    private AnalysisBudget(long timeoutMillis) {
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Thread thread = Thread.currentThread();
+        this.interrupt = scheduler.schedule(() -> interruptAll(thread), 2 * timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void interruptAll(Thread owner) {
+        synchronized (helpers) {
+            interrupted = true;
+            owner.interrupt();
+            helpers.forEach(Thread::interrupt);
+        }
+    }
+
+    /**
+     * Start a budget on the current thread, until {@link #stop()} is called.
+     */
+    public static AnalysisBudget start(long timeoutMillis) {
+        AnalysisBudget budget = new AnalysisBudget(timeoutMillis);
+        currentBudget.set(budget);
+        activeBudgets.incrementAndGet();
+        return budget;
+    }
+
+    public void stop() {
+        if (currentBudget.get() == this) {
+            currentBudget.remove();
+        }
+        if (!interrupt.cancel(false)) {
+            //the interrupt was delivered to this thread, clear it once its delivery completed
+            try {
+                interrupt.get();
+            } catch (Exception ignored) {
+            }
+            Thread.interrupted();
+        }
+        activeBudgets.decrementAndGet();
+    }
+
+    /**
+     * Run work on behalf of the given budget, e.g. a task submitted to a pool by the thread analyzing a commit.
+     * The work sees the budget as the budget of its thread, and is interrupted together with the thread that
+     * started the budget.
+     */
+    public static <T> T callWith(AnalysisBudget budget, Supplier<T> supplier) {
+        AnalysisBudget previous = currentBudget.get();
+        if (budget == null || previous == budget) {
+            return supplier.get();
+        }
+        Thread thread = Thread.currentThread();
+        synchronized (budget.helpers) {
+            budget.helpers.add(thread);
+            if (budget.interrupted) {
+                thread.interrupt();
+            }
+        }
+        currentBudget.set(budget);
+        try {
+            return supplier.get();
+        } finally {
+            if (previous != null) {
+                currentBudget.set(previous);
+            } else {
+                currentBudget.remove();
+            }
+            synchronized (budget.helpers) {
+                budget.helpers.remove(thread);
+                if (budget.interrupted) {
+                    //the pool thread outlives the work, so it should not keep the interrupt of the budget
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    public static AnalysisBudget current() {
+        return activeBudgets.get() == 0 ? null : currentBudget.get();
+    }
+
+    /**
+     * @return Whether the budget of the current thread is exhausted, in which case the given optional phase is
+     * recorded as skipped and should not be run.
+     */
+    public static boolean skip(String phase) {
+        AnalysisBudget budget = current();
+        if (budget == null || !budget.isExhausted()) {
+            return false;
+        }
+        synchronized (budget.skippedPhases) {
+            budget.skippedPhases.add(phase);
+        }
+        return true;
+    }
+
+    public boolean isExhausted() {
+        if (!exhausted && System.nanoTime() - deadline >= 0) {
+            exhausted = true;
+        }
+        return exhausted;
+    }
+
+    /**
+     * @return Whether phases were skipped, so that the refactorings found are a partial result.
+     */
+    public boolean isPartial() {
+        synchronized (skippedPhases) {
+            return !skippedPhases.isEmpty();
+        }
+    }
+
+    public List<String> getSkippedPhases() {
+        synchronized (skippedPhases) {
+            return new ArrayList<>(skippedPhases);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package org.refactoringminer.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.refactoringminer.api.Refactoring;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * File-based store of the results of analyzed commits, keyed by repository and commit sha1, which allows
+ * a long mining run to be resumed after it was stopped and its results to be exported again.
+ * <p>
+ * Every result is appended as a JSON line (the refactorings as in {@link Refactoring#writeJSON}, or the error of
+ * a commit that could not be analyzed) to the current segment file, which is rolled over when it grows larger than
+ * {@value #SEGMENT_SIZE} bytes. The result is forced to disk before its position is appended to the index file, so
+ * a result is only visible once it was completely written. When the store is opened, results that were not indexed
+ * before a crash are discarded.
+ * <p>
+ * Only the errors that analyzing the commit again would raise again should be stored, e.g. a file that cannot be
+ * parsed, and not an interrupted or timed out analysis.
+ */
+public class CommitResultStore implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(CommitResultStore.class);
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.ndjson");
+    private static final String INDEX_FILE = "index.tsv";
+    private static final String HEADS_FILE = "heads.tsv";
+
+    private final Path directory;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    //repository -> sha1 -> location of the result, in the order the results were stored
+    private final Map<String, Map<String, Location>> index = new LinkedHashMap<>();
+    private final Map<String, List<String>> heads = new HashMap<>();
+    private int segmentNumber;
+    private FileChannel segment;
+    private FileChannel indexFile;
+
+    private static class Location {
+        private final int segmentNumber;
+        private final long offset;
+        private final int length;
+
+        private Location(int segmentNumber, long offset, int length) {
+            this.segmentNumber = segmentNumber;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Open the store in the given directory, creating it if it does not exist.
+     */
+    public CommitResultStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        segmentNumber = Math.max(1, lastSegmentNumber());
+        readIndex();
+        readHeads();
+        Path segmentPath = segmentPath(segmentNumber);
+        segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        //results written after the last indexed result of the segment were interrupted
+        long end = 0;
+        for (Map<String, Location> locations : index.values()) {
+            for (Location location : locations.values()) {
+                if (location.segmentNumber == segmentNumber) {
+                    end = Math.max(end, location.offset + location.length);
+                }
+            }
+        }
+        if (segment.size() > end) {
+            logger.warn(String.format("Discarding %d bytes of results that were not indexed in %s", segment.size() - end, segmentPath));
+            segment.truncate(end);
+        }
+        segment.position(end);
+        indexFile = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public synchronized boolean contains(String repository, String sha1) {
+        Map<String, Location> locations = index.get(repository);
+        return locations != null && locations.containsKey(sha1);
+    }
+
+    /**
+     * @return The number of commits of the repository that have a result.
+     */
+    public synchronized int size(String repository) {
+        Map<String, Location> locations = index.get(repository);
+        return locations != null ? locations.size() : 0;
+    }
+
+    public synchronized void put(String repository, String sha1, List<Refactoring> refactorings) throws IOException {
+        append(repository, sha1, refactorings, null);
+    }
+
+    public synchronized void putError(String repository, String sha1, Exception e) throws IOException {
+        append(repository, sha1, Collections.emptyList(), String.valueOf(e));
+    }
+
+    /**
+     * @return The stored result of the commit as a single line JSON object, or null if the commit has no result.
+     */
+    public synchronized String get(String repository, String sha1) throws IOException {
+        Map<String, Location> locations = index.get(repository);
+        Location location = locations != null ? locations.get(sha1) : null;
+        if (location == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(location.segmentNumber), StandardOpenOption.READ)) {
+            return read(channel, location);
+        }
+    }
+
+    /**
+     * Write the stored results as JSON lines, in the order in which they were stored.
+     *
+     * @param repository The repository of the results to write, or null to write the results of all repositories.
+     */
+    public synchronized void export(String repository, OutputStream out) throws IOException {
+        Map<Integer, FileChannel> channels = new HashMap<>();
+        try {
+            for (Map.Entry<String, Map<String, Location>> entry : index.entrySet()) {
+                if (repository != null && !repository.equals(entry.getKey())) {
+                    continue;
+                }
+                for (Location location : entry.getValue().values()) {
+                    FileChannel channel = channels.get(location.segmentNumber);
+                    if (channel == null) {
+                        channel = FileChannel.open(segmentPath(location.segmentNumber), StandardOpenOption.READ);
+                        channels.put(location.segmentNumber, channel);
+                    }
+                    out.write(readBytes(channel, location));
+                }
+            }
+            out.flush();
+        } finally {
+            for (FileChannel channel : channels.values()) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * @return The commits whose ancestors were all analyzed in the repository, as recorded by {@link #putHeads}.
+     */
+    public synchronized List<String> getHeads(String repository) {
+        return heads.getOrDefault(repository, Collections.emptyList());
+    }
+
+    public synchronized void putHeads(String repository, List<String> commits) throws IOException {
+        checkKey(repository);
+        heads.put(repository, List.copyOf(commits));
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : heads.entrySet()) {
+            sb.append(entry.getKey()).append('\t').append(String.join(" ", entry.getValue())).append('\n');
+        }
+        Path temp = directory.resolve(HEADS_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(HEADS_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            segment.close();
+        } finally {
+            indexFile.close();
+        }
+    }
+
+    private void append(String repository, String sha1, List<Refactoring> refactorings, String error) throws IOException {
+        checkKey(repository);
+        checkKey(sha1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonGenerator generator = jsonFactory.createGenerator(bytes, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("repository", repository);
+            generator.writeStringField("sha1", sha1);
+            if (error != null) {
+                generator.writeStringField("error", error);
+            }
+            generator.writeArrayFieldStart("refactorings");
+            for (Refactoring refactoring : refactorings) {
+                refactoring.writeJSON(generator);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        bytes.write('\n');
+        if (segment.position() > 0 && segment.position() + bytes.size() > SEGMENT_SIZE) {
+            segment.close();
+            segmentNumber++;
+            segment = FileChannel.open(segmentPath(segmentNumber), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            segment.truncate(0);
+        }
+        Location location = new Location(segmentNumber, segment.position(), bytes.size());
+        writeFully(segment, ByteBuffer.wrap(bytes.toByteArray()));
+        segment.force(true);
+        String indexLine = String.join("\t", repository, sha1, String.valueOf(location.segmentNumber),
+            String.valueOf(location.offset), String.valueOf(location.length)) + "\n";
+        writeFully(indexFile, ByteBuffer.wrap(indexLine.getBytes(StandardCharsets.UTF_8)));
+        indexFile.force(true);
+        Map<String, Location> locations = index.computeIfAbsent(repository, k -> new LinkedHashMap<>());
+        locations.remove(sha1);
+        locations.put(sha1, location);
+    }
+
+    private void readIndex() throws IOException {
+        Path indexPath = directory.resolve(INDEX_FILE);
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        byte[] content = Files.readAllBytes(indexPath);
+        int end = content.length;
+        while (end > 0 && content[end - 1] != '\n') {
+            end--;
+        }
+        if (end < content.length) {
+            //the last line was not completely written
+            try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+            }
+        }
+        Map<Integer, Long> segmentSizes = new HashMap<>();
+        for (String line : new String(content, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            String[] fields = line.split("\t");
+            if (fields.length != 5) {
+                continue;
+            }
+            try {
+                Location location = new Location(Integer.parseInt(fields[2]), Long.parseLong(fields[3]), Integer.parseInt(fields[4]));
+                long segmentSize = segmentSizes.computeIfAbsent(location.segmentNumber, this::segmentSize);
+                if (location.offset + location.length <= segmentSize) {
+                    Map<String, Location> locations = index.computeIfAbsent(fields[0], k -> new LinkedHashMap<>());
+                    //a commit stored again is exported at its latest position
+                    locations.remove(fields[1]);
+                    locations.put(fields[1], location);
+                }
+            } catch (NumberFormatException e) {
+                logger.warn(String.format("Ignoring malformed index entry %s", line));
+            }
+        }
+    }
+
+    private void readHeads() throws IOException {
+        Path headsPath = directory.resolve(HEADS_FILE);
+        if (!Files.exists(headsPath)) {
+            return;
+        }
+        for (String line : Files.readAllLines(headsPath, StandardCharsets.UTF_8)) {
+            String[] fields = line.split("\t");
+            if (fields.length == 2) {
+                heads.put(fields[0], List.of(fields[1].split(" ")));
+            }
+        }
+    }
+
+    private int lastSegmentNumber() throws IOException {
+        int last = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    last = Math.max(last, Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        return last;
+    }
+
+    private long segmentSize(int number) {
+        try {
+            Path path = segmentPath(number);
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("segment-%06d.ndjson", number));
+    }
+
+    private static String read(FileChannel channel, Location location) throws IOException {
+        byte[] bytes = readBytes(channel, location);
+        return new String(bytes, 0, bytes.length - 1, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(FileChannel channel, Location location) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(location.length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, location.offset + buffer.position()) < 0) {
+                throw new IOException(String.format("Result at %d of segment %d is truncated", location.offset, location.segmentNumber));
+            }
+        }
+        return buffer.array();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void checkKey(String key) {
+        if (key == null || key.isEmpty() || key.indexOf('\t') >= 0 || key.indexOf('\n') >= 0 || key.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Invalid repository or commit: " + key);
+        }
+    }
+}
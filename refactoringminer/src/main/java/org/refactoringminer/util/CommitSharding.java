@@ -0,0 +1,135 @@
+package org.refactoringminer.util;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Splits the commits of a walk into shards of similar analysis cost, so that a history can be analyzed by
+ * several machines without coordination. Every machine computes the same assignment from the same commits.
+ * <p>
+ * The cost of a commit is estimated from the java files it changes: their number and the size of their versions
+ * before and after the commit. The commits are assigned from the most to the least expensive, each to the shard
+ * with the lowest total cost so far; ties are broken by commit id and shard index.
+ */
+public class CommitSharding {
+    //the fixed cost of a changed file (loading, parsing, matching), in bytes of file contents
+    private static final long FILE_COST = 4096;
+
+    private final int shardIndex;
+    private final int shardCount;
+
+    public CommitSharding(int shardIndex, int shardCount) {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException(String.format("Invalid shard %d of %d", shardIndex, shardCount));
+        }
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return The ids of the given commits that belong to this shard.
+     */
+    public Set<ObjectId> select(Repository repository, Iterable<RevCommit> commits) throws IOException {
+        List<CommitCost> costs = new ArrayList<>();
+        try (ObjectReader reader = repository.newObjectReader(); RevWalk walk = new RevWalk(reader)) {
+            for (RevCommit commit : commits) {
+                costs.add(new CommitCost(commit.copy(), estimateCost(reader, walk, commit)));
+            }
+        }
+        costs.sort(Comparator.comparingLong((CommitCost c) -> c.cost).reversed().thenComparing(c -> c.commitId));
+        //shard loads ordered by total cost, then by shard index
+        PriorityQueue<long[]> loads = new PriorityQueue<>(shardCount,
+            Comparator.<long[]>comparingLong(load -> load[1]).thenComparingLong(load -> load[0]));
+        for (int i = 0; i < shardCount; i++) {
+            loads.add(new long[] {i, 0});
+        }
+        Set<ObjectId> selected = new HashSet<>();
+        for (CommitCost commitCost : costs) {
+            long[] load = loads.poll();
+            if (load[0] == shardIndex) {
+                selected.add(commitCost.commitId);
+            }
+            load[1] += commitCost.cost;
+            loads.add(load);
+        }
+        return selected;
+    }
+
+    /**
+     * @return A filter accepting the given commits, e.g. the commits of a shard.
+     */
+    public static RevFilter filter(Set<ObjectId> commits) {
+        return new RevFilter() {
+            @Override
+            public boolean include(RevWalk walker, RevCommit c) {
+                return commits.contains(c);
+            }
+
+            @Override
+            public RevFilter clone() {
+                return this;
+            }
+
+            @Override
+            public boolean requiresCommitBody() {
+                return false;
+            }
+        };
+    }
+
+    private static long estimateCost(ObjectReader reader, RevWalk walk, RevCommit commit) throws IOException {
+        if (commit.getParentCount() == 0) {
+            return FILE_COST;
+        }
+        long cost = FILE_COST;
+        try (TreeWalk tw = new TreeWalk(reader)) {
+            tw.setRecursive(true);
+            tw.setFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathSuffixFilter.create(".java")));
+            tw.addTree(walk.parseCommit(commit.getParent(0)).getTree());
+            tw.addTree(walk.parseCommit(commit).getTree());
+            while (tw.next()) {
+                cost += FILE_COST;
+                for (ObjectId blobId : new ObjectId[] {tw.getObjectId(0), tw.getObjectId(1)}) {
+                    if (!ObjectId.zeroId().equals(blobId)) {
+                        cost += reader.getObjectSize(blobId, Constants.OBJ_BLOB);
+                    }
+                }
+            }
+        }
+        return cost;
+    }
+
+    private static class CommitCost {
+        private final ObjectId commitId;
+        private final long cost;
+
+        private CommitCost(ObjectId commitId, long cost) {
+            this.commitId = commitId;
+            this.cost = cost;
+        }
+    }
+}
@@ -8,7 +8,9 @@ import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.Edit;
 import org.eclipse.jgit.diff.Edit.Type;
 import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryBuilder;
@@ -17,10 +19,12 @@ import org.eclipse.jgit.patch.HunkHeader;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.RevWalkUtils;
+import org.eclipse.jgit.revwalk.filter.AndRevFilter;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.TrackingRefUpdate;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.io.DisabledOutputStream;
 import org.refactoringminer.api.Churn;
 import org.refactoringminer.api.GitService;
@@ -28,20 +32,32 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class GitServiceImpl implements GitService {
 
-    private static final String REMOTE_REFS_PREFIX = "refs/remotes/origin/";
+    public static final String REMOTE_REFS_PREFIX = "refs/remotes/origin/";
     final Logger logger = LoggerFactory.getLogger(GitServiceImpl.class);
 
+    private static final int CACHED_CHANGE_SETS = 16;
+    private static final Map<ObjectId, List<DiffEntry>> changeSets = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ObjectId, List<DiffEntry>> eldest) {
+            return size() > CACHED_CHANGE_SETS;
+        }
+    };
+
     final DefaultCommitsFilter commitsFilter = new DefaultCommitsFilter();
+    private int renameLimit = -1;
 
     @Override
     public Repository cloneIfNotExists(String projectPath, String cloneUrl/*, String branch*/) throws Exception {
@@ -176,6 +192,30 @@ public class GitServiceImpl implements GitService {
         return walk;
     }
 
+    /**
+     * Fetch the remote repository and walk the commits of the remote branches that are not reachable from
+     * the given commits, e.g. the remote heads at the end of the last completed analysis.
+     */
+    public RevWalk fetchAndCreateNewRevsWalk(Repository repository, String branch, List<String> analyzedCommits) throws Exception {
+        this.fetch(repository);
+
+        RevWalk walk = new RevWalk(repository);
+        for (Ref ref : repository.getRefDatabase().getRefsByPrefix(REMOTE_REFS_PREFIX)) {
+            if (ref.getObjectId() != null && (branch == null || ref.getName().endsWith("/" + branch))) {
+                walk.markStart(walk.parseCommit(ref.getObjectId()));
+            }
+        }
+        for (String commitId : analyzedCommits) {
+            try {
+                walk.markUninteresting(walk.parseCommit(ObjectId.fromString(commitId)));
+            } catch (MissingObjectException e) {
+                logger.warn("Analyzed commit {} is no longer in the repository", commitId);
+            }
+        }
+        walk.setRevFilter(commitsFilter);
+        return walk;
+    }
+
     private List<TrackingRefUpdate> fetch(Repository repository) throws Exception {
         logger.info("Fetching changes of repository {}", repository.getDirectory().toString());
         try (Git git = new Git(repository)) {
@@ -221,6 +261,22 @@ public class GitServiceImpl implements GitService {
         return walk;
     }
 
+    public RevWalk createAllRevsWalk(Repository repository, String branch, int shardIndex, int shardCount) throws Exception {
+        CommitSharding sharding = new CommitSharding(shardIndex, shardCount);
+        Set<ObjectId> shard;
+        RevWalk allRevsWalk = createAllRevsWalk(repository, branch);
+        //the commits skipped by this analysis do not change the shards, so that all shards agree on them
+        allRevsWalk.setRevFilter(RevFilter.NO_MERGES);
+        try {
+            shard = sharding.select(repository, allRevsWalk);
+        } finally {
+            allRevsWalk.dispose();
+        }
+        RevWalk walk = createAllRevsWalk(repository, branch);
+        walk.setRevFilter(AndRevFilter.create(commitsFilter, CommitSharding.filter(shard)));
+        return walk;
+    }
+
     @Override
     public Iterable<RevCommit> createRevsWalkBetweenTags(Repository repository, String startTag, String endTag)
         throws Exception {
@@ -258,24 +314,49 @@ public class GitServiceImpl implements GitService {
         }
     }
 
+    @Override
+    public Iterable<RevCommit> createRevsWalkBetweenCommits(Repository repository, String startCommitId, String endCommitId, int shardIndex, int shardCount)
+        throws Exception {
+        Iterable<RevCommit> revCommits = createRevsWalkBetweenCommits(repository, startCommitId, endCommitId);
+        Set<ObjectId> shard = new CommitSharding(shardIndex, shardCount).select(repository, revCommits);
+        return StreamSupport.stream(revCommits.spliterator(), false)
+            .filter(shard::contains)
+            .collect(Collectors.toList());
+    }
+
     public boolean isCommitAnalyzed(String sha1) {
         return false;
     }
 
+    /**
+     * Limit the number of added and deleted java files of a commit that are compared by content to detect renames.
+     * Above the limit, only renames of identical files are detected.
+     *
+     * @param renameLimit The limit, or a negative value to use the {@code diff.renameLimit} of the repository configuration.
+     */
+    public void setRenameLimit(int renameLimit) {
+        this.renameLimit = renameLimit;
+    }
+
     public void fileTreeDiff(Repository repository, RevCommit currentCommit, List<String> javaFilesBefore, List<String> javaFilesCurrent, Map<String, String> renamedFilesHint) throws Exception {
         if (currentCommit.getParentCount() > 0) {
-            ObjectId oldTree = currentCommit.getParent(0).getTree();
-            ObjectId newTree = currentCommit.getTree();
-            final TreeWalk tw = new TreeWalk(repository);
-            tw.setRecursive(true);
-            tw.addTree(oldTree);
-            tw.addTree(newTree);
-
             final RenameDetector rd = new RenameDetector(repository);
             rd.setRenameScore(80);
-            rd.addAll(DiffEntry.scan(tw));
+            if (renameLimit >= 0) {
+                rd.setRenameLimit(renameLimit);
+            }
+            //only the java files take part in the rename detection
+            for (DiffEntry entry : changeSet(repository, currentCommit)) {
+                if (isJavafile(entry.getOldPath()) || isJavafile(entry.getNewPath())) {
+                    rd.add(entry);
+                }
+            }
 
-            for (DiffEntry diff : rd.compute(tw.getObjectReader(), null)) {
+            List<DiffEntry> diffs;
+            try (ObjectReader reader = repository.newObjectReader()) {
+                diffs = rd.compute(reader, null);
+            }
+            for (DiffEntry diff : diffs) {
                 ChangeType changeType = diff.getChangeType();
                 String oldPath = diff.getOldPath();
                 String newPath = diff.getNewPath();
@@ -298,6 +379,32 @@ public class GitServiceImpl implements GitService {
         }
     }
 
+    /**
+     * The files changed by a commit with respect to its first parent, without rename detection. Only the sub-trees
+     * that differ are walked. The change-sets of the recent commits are kept, so that {@link #fileTreeDiff} and
+     * {@link #churn} walk the trees of a commit once.
+     */
+    private static List<DiffEntry> changeSet(Repository repository, RevCommit currentCommit) throws IOException {
+        synchronized (changeSets) {
+            List<DiffEntry> diffs = changeSets.get(currentCommit);
+            if (diffs != null) {
+                return diffs;
+            }
+        }
+        List<DiffEntry> diffs;
+        try (TreeWalk tw = new TreeWalk(repository)) {
+            tw.setRecursive(true);
+            tw.setFilter(TreeFilter.ANY_DIFF);
+            tw.addTree(currentCommit.getParent(0).getTree());
+            tw.addTree(currentCommit.getTree());
+            diffs = Collections.unmodifiableList(DiffEntry.scan(tw));
+        }
+        synchronized (changeSets) {
+            changeSets.put(currentCommit.copy(), diffs);
+        }
+        return diffs;
+    }
+
     private boolean isJavafile(String path) {
         return path.endsWith(".java");
     }
@@ -305,14 +412,7 @@ public class GitServiceImpl implements GitService {
     @Override
     public Churn churn(Repository repository, RevCommit currentCommit) throws Exception {
         if (currentCommit.getParentCount() > 0) {
-            ObjectId oldTree = currentCommit.getParent(0).getTree();
-            ObjectId newTree = currentCommit.getTree();
-            final TreeWalk tw = new TreeWalk(repository);
-            tw.setRecursive(true);
-            tw.addTree(oldTree);
-            tw.addTree(newTree);
-
-            List<DiffEntry> diffs = DiffEntry.scan(tw);
+            List<DiffEntry> diffs = changeSet(repository, currentCommit);
             DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
             diffFormatter.setRepository(repository);
             diffFormatter.setContext(0);
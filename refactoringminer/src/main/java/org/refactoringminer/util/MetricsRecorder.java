@@ -0,0 +1,145 @@
+package org.refactoringminer.util;
+
+import org.refactoringminer.api.CommitMetrics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Records the phase durations and counters of the analysis of a commit on the thread that analyzes it.
+ * <p>
+ * The static methods are called from the detection code and do nothing unless a recorder is started on the
+ * current thread. While no recorder is started anywhere, they only read a volatile counter.
+ */
+public class MetricsRecorder {
+    private static final long NOT_RECORDED = Long.MIN_VALUE;
+    private static final long NESTED = Long.MIN_VALUE + 1;
+    private static final AtomicInteger activeRecorders = new AtomicInteger();
+    private static final ThreadLocal<MetricsRecorder> currentRecorder = new ThreadLocal<>();
+
+    public enum Phase {
+        POPULATE_FILE_CONTENTS("populateFileContents"),
+        PARSING("parsing"),
+        MODEL_DIFF("modelDiff"),
+        CREATE_BODY_MAPPERS("createBodyMappers"),
+        CHECK_FOR_EXTRACTED_OPERATIONS("checkForExtractedOperations"),
+        CHECK_FOR_INLINED_OPERATIONS("checkForInlinedOperations"),
+        GET_REFACTORINGS("getRefactorings");
+
+        private final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+    }
+
+    public enum Counter {
+        FILES_PARSED("filesParsed"),
+        BODY_MAPPERS("bodyMappers"),
+        FIND_REPLACEMENTS("findReplacements"),
+        EDIT_DISTANCE("editDistance");
+
+        private final String key;
+
+        Counter(String key) {
+            this.key = key;
+        }
+    }
+
+    private final AtomicLongArray phaseDurations = new AtomicLongArray(Phase.values().length);
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+    //the depths are per thread, as the work done on behalf of the recorder (see callWith) may time phases too
+    private final ThreadLocal<int[]> phaseDepths = ThreadLocal.withInitial(() -> new int[Phase.values().length]);
+
+    private MetricsRecorder() {
+    }
+
+    /**
+     * Start recording on the current thread, until {@link #stop()} is called.
+     */
+    public static MetricsRecorder start() {
+        MetricsRecorder recorder = new MetricsRecorder();
+        currentRecorder.set(recorder);
+        activeRecorders.incrementAndGet();
+        return recorder;
+    }
+
+    public void stop() {
+        if (currentRecorder.get() == this) {
+            currentRecorder.remove();
+        }
+        activeRecorders.decrementAndGet();
+    }
+
+    public static MetricsRecorder current() {
+        return activeRecorders.get() == 0 ? null : currentRecorder.get();
+    }
+
+    /**
+     * Run work on behalf of the given recorder, e.g. a task submitted to a pool by the thread analyzing a commit.
+     * The phases timed by such work add up with the ones of the other threads, so a phase run concurrently may
+     * take longer in total than the commit.
+     */
+    public static <T> T callWith(MetricsRecorder recorder, Supplier<T> supplier) {
+        if (recorder == null || currentRecorder.get() == recorder) {
+            return supplier.get();
+        }
+        MetricsRecorder previous = currentRecorder.get();
+        currentRecorder.set(recorder);
+        try {
+            return supplier.get();
+        } finally {
+            if (previous != null) {
+                currentRecorder.set(previous);
+            } else {
+                currentRecorder.remove();
+            }
+        }
+    }
+
+    public static void increment(Counter counter) {
+        MetricsRecorder recorder = current();
+        if (recorder != null) {
+            recorder.counters.incrementAndGet(counter.ordinal());
+        }
+    }
+
+    /**
+     * @return The start of the phase, to be passed to {@link #endPhase}. Only the outermost of nested
+     * occurrences of a phase (e.g. body mappers created while creating body mappers) is timed.
+     */
+    public static long startPhase(Phase phase) {
+        MetricsRecorder recorder = current();
+        if (recorder == null) {
+            return NOT_RECORDED;
+        }
+        return recorder.phaseDepths.get()[phase.ordinal()]++ == 0 ? System.nanoTime() : NESTED;
+    }
+
+    public static void endPhase(Phase phase, long start) {
+        if (start == NOT_RECORDED) {
+            return;
+        }
+        MetricsRecorder recorder = currentRecorder.get();
+        if (recorder != null) {
+            recorder.phaseDepths.get()[phase.ordinal()]--;
+            if (start != NESTED) {
+                recorder.phaseDurations.addAndGet(phase.ordinal(), System.nanoTime() - start);
+            }
+        }
+    }
+
+    public CommitMetrics getMetrics() {
+        Map<String, Long> durations = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            durations.put(phase.key, phaseDurations.get(phase.ordinal()));
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            counts.put(counter.key, counters.get(counter.ordinal()));
+        }
+        return new CommitMetrics(durations, counts);
+    }
+}